@@ -4,6 +4,8 @@ import java.util.*;
 
 import org.objectweb.asm.*;
 
+import org.kathrynhuxtable.radiofreelawrence.game.grammar.ControlSignal;
+
 import static org.objectweb.asm.Opcodes.*;
 
 public class AsmUtils {
@@ -32,7 +34,7 @@ public class AsmUtils {
 
 	public static void createGetter(ClassVisitor cv, String innerClassInternalName, int flags, String getterName, String name, String descriptor, String signature) {
 		String innerClassDescriptor = "L" + innerClassInternalName + ";";
-		MethodVisitor mv = cv.visitMethod(flags, getterName, "()" + descriptor, "()" + signature, null);
+		MethodVisitor mv = cv.visitMethod(flags, getterName, "()" + descriptor, signature == null ? null : "()" + signature, null);
 		mv.visitCode();
 		Label beginLabel = new Label();
 		mv.visitLabel(beginLabel);
@@ -69,6 +71,54 @@ public class AsmUtils {
 		mv.visitEnd();
 	}
 
+	public static void loadInternalFunctions(MethodVisitor mv, String currentClass) {
+		mv.visitVarInsn(ALOAD, 0);
+		if (currentClass != null) {
+			// Need to reference instance variable in outer class
+			mv.visitFieldInsn(GETFIELD, currentClass, "this$0", GameContext.GAME_CLASS_DESCRIPTOR);
+		}
+		mv.visitFieldInsn(GETFIELD, GameContext.GAME_CLASS_NAME, "internalFunctions", Type.getDescriptor(InternalFunctions.class));
+	}
+
+	public static void returnDefault(MethodVisitor mv, Type returnType) {
+		switch (returnType.getSort()) {
+			case Type.VOID -> mv.visitInsn(RETURN);
+			case Type.OBJECT, Type.ARRAY -> {
+				mv.visitInsn(ACONST_NULL);
+				mv.visitInsn(ARETURN);
+			}
+			default -> {
+				mv.visitInsn(ICONST_0);
+				mv.visitInsn(IRETURN);
+			}
+		}
+	}
+
+	/*
+	 * Return from the current method if a control signal (break or continue out of a proc or repeat)
+	 * is pending. Anything left on the operand stack is discarded by the return.
+	 */
+	public static void checkControlSignal(MethodVisitor mv, String currentClass, Type returnType) {
+		Label continueLabel = new Label();
+		loadInternalFunctions(mv, currentClass);
+		mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(InternalFunctions.class), "isSignalled", "()Z", false);
+		mv.visitJumpInsn(IFEQ, continueLabel);
+		returnDefault(mv, returnType);
+		mv.visitLabel(continueLabel);
+	}
+
+	public static void signalControl(MethodVisitor mv, String currentClass, Type returnType, ControlSignal controlSignal) {
+		loadInternalFunctions(mv, currentClass);
+		mv.visitFieldInsn(GETSTATIC, Type.getInternalName(ControlSignal.class), controlSignal.name(), Type.getDescriptor(ControlSignal.class));
+		mv.visitMethodInsn(
+				INVOKEVIRTUAL,
+				Type.getInternalName(InternalFunctions.class),
+				"signal",
+				"(" + Type.getDescriptor(ControlSignal.class) + ")V",
+				false);
+		returnDefault(mv, returnType);
+	}
+
 	public static <T> void createList(MethodVisitor mv, String innerClassInternalName, String name, Iterable<T> iterable) {
 		mv.visitVarInsn(ALOAD, 0);
 		mv.visitTypeInsn(NEW, Type.getInternalName(ArrayList.class));
@@ -113,6 +163,34 @@ public class AsmUtils {
 		}
 	}
 
+	public static void createSwitch(MethodVisitor mv, Label defaultLabel, SortedMap<Integer, Label> cases) {
+		if (cases.isEmpty()) {
+			mv.visitInsn(POP);
+			mv.visitJumpInsn(GOTO, defaultLabel);
+			return;
+		}
+		int[] keys = cases.keySet().stream().mapToInt(Integer::intValue).toArray();
+		Label[] labels = cases.values().toArray(new Label[0]);
+
+		// Same cost model javac uses to choose between the two switch instructions.
+		int lo = keys[0];
+		int hi = keys[keys.length - 1];
+		long tableSpaceCost = 4 + ((long) hi - lo + 1);
+		long tableTimeCost = 3;
+		long lookupSpaceCost = 3 + 2L * keys.length;
+		long lookupTimeCost = keys.length;
+		if (tableSpaceCost + 3 * tableTimeCost <= lookupSpaceCost + 3 * lookupTimeCost) {
+			Label[] table = new Label[hi - lo + 1];
+			Arrays.fill(table, defaultLabel);
+			for (int i = 0; i < keys.length; i++) {
+				table[keys[i] - lo] = labels[i];
+			}
+			mv.visitTableSwitchInsn(lo, hi, defaultLabel, table);
+		} else {
+			mv.visitLookupSwitchInsn(defaultLabel, keys, labels);
+		}
+	}
+
 	public static void addIntegerToMap(MethodVisitor mv, String classInternalName, String name, String key, int value) {
 		mv.visitVarInsn(ALOAD, 0);
 		mv.visitFieldInsn(GETFIELD, classInternalName, name, Type.getDescriptor(Map.class));
@@ -0,0 +1,14 @@
+package org.kathrynhuxtable.radiofreelawrence.game;
+
+import java.util.Map;
+
+/*
+ * The output of a compile: the generated class files by binary name, and the metadata the runtime needs.
+ */
+public record CompiledGame(GameMetadata metadata, Map<String, byte[]> classes) {
+
+	public void load(GameSession session) {
+		classes.forEach(session.classLoader::addClass);
+		session.internalFunctions.setMetadata(metadata);
+	}
+}
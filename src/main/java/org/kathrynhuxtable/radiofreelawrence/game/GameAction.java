@@ -4,8 +4,8 @@ import java.util.Iterator;
 
 public interface GameAction {
 
-	void doAction(String verb);
+	void doAction(int verb);
 	Iterator<Object> iterator();
 
-	int doMessage(String verb, int arg);
+	int doMessage(int message, int arg);
 }
@@ -0,0 +1,232 @@
+package org.kathrynhuxtable.radiofreelawrence.game;
+
+import java.io.*;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Compiled games on disk, stored under a hash of the compiler version and the contents of every
+ * source file the compile read. A small index per main file remembers which files those were.
+ */
+@Slf4j
+public class GameCache {
+
+	private static final int MAGIC = 0x47434348;
+	private static final int FORMAT_VERSION = 3;
+
+	private static final String GAME_PACKAGE = "org/kathrynhuxtable/radiofreelawrence/game/";
+	private static final List<String> PARSER_CLASSES = List.of(
+			"org/kathrynhuxtable/gdesc/parser/GameLexer.class",
+			"org/kathrynhuxtable/gdesc/parser/GameParser.class");
+
+	private final Path directory;
+	private final String compilerVersion;
+
+	public GameCache(Path directory) throws IOException {
+		this.directory = directory;
+		this.compilerVersion = compilerVersion();
+	}
+
+	/*
+	 * Returns the game compiled from the current sources, or null if there is none. An entry that
+	 * cannot be read is deleted and treated as missing, so the game is compiled again.
+	 */
+	public CompiledGame load(String mainFile) throws IOException {
+		Path index = directory.resolve(hash(List.of(mainFile), false) + ".sources");
+		if (!Files.exists(index)) {
+			return null;
+		}
+		Path file = null;
+		try {
+			file = directory.resolve(hash(Files.readAllLines(index, StandardCharsets.UTF_8), true) + ".gcache");
+			if (!Files.exists(file)) {
+				return null;
+			}
+			return read(file);
+		} catch (IOException | RuntimeException e) {
+			log.warn("Discarding unreadable game cache entry for {}: {}", mainFile, e.toString());
+			Files.deleteIfExists(index);
+			if (file != null) {
+				Files.deleteIfExists(file);
+			}
+			return null;
+		}
+	}
+
+	public void store(String mainFile, List<String> sourceFiles, CompiledGame compiledGame) throws IOException {
+		Files.createDirectories(directory);
+
+		Path file = directory.resolve(hash(sourceFiles, true) + ".gcache");
+		writeAtomically(file, stream -> {
+			CRC32 crc = new CRC32();
+			DataOutputStream out = new DataOutputStream(new CheckedOutputStream(stream, crc));
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			compiledGame.metadata().write(out);
+			out.writeInt(compiledGame.classes().size());
+			for (Map.Entry<String, byte[]> classEntry : compiledGame.classes().entrySet()) {
+				out.writeUTF(classEntry.getKey());
+				out.writeInt(classEntry.getValue().length);
+				out.write(classEntry.getValue());
+			}
+			out.flush();
+			new DataOutputStream(stream).writeLong(crc.getValue());
+		});
+
+		Path index = directory.resolve(hash(List.of(mainFile), false) + ".sources");
+		writeAtomically(index, stream -> stream.write(String.join("\n", sourceFiles).getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private CompiledGame read(Path file) throws IOException {
+		long size = Files.size(file);
+		CRC32 crc = new CRC32();
+		try (InputStream stream = new BufferedInputStream(Files.newInputStream(file))) {
+			DataInputStream in = new DataInputStream(new CheckedInputStream(stream, crc));
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+				throw new IOException("not a game cache file of format " + FORMAT_VERSION);
+			}
+			GameMetadata metadata = GameMetadata.read(in);
+			int classCount = in.readInt();
+			Map<String, byte[]> classes = new LinkedHashMap<>();
+			for (int i = 0; i < classCount; i++) {
+				String name = in.readUTF();
+				int length = in.readInt();
+				if (length < 0 || length > size) {
+					throw new IOException("bad class length " + length);
+				}
+				byte[] bytes = new byte[length];
+				in.readFully(bytes);
+				classes.put(name, bytes);
+			}
+			if (new DataInputStream(stream).readLong() != crc.getValue() || stream.read() != -1) {
+				throw new IOException("checksum mismatch");
+			}
+			return new CompiledGame(metadata, classes);
+		}
+	}
+
+	private interface Content {
+		void writeTo(OutputStream out) throws IOException;
+	}
+
+	/*
+	 * Readers see either the old file or the complete new one, never a partial write.
+	 */
+	private void writeAtomically(Path file, Content content) throws IOException {
+		Path temp = Files.createTempFile(directory, "game", ".tmp");
+		try {
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+				content.writeTo(out);
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private String hash(List<String> names, boolean withContents) throws IOException {
+		MessageDigest digest = newDigest();
+		digest.update(compilerVersion.getBytes(StandardCharsets.UTF_8));
+		for (String name : names) {
+			digest.update((byte) 0);
+			digest.update(name.getBytes(StandardCharsets.UTF_8));
+			if (withContents) {
+				try (InputStream in = GameCache.class.getResourceAsStream("/" + name)) {
+					// A missing optional include hashes differently from an empty one.
+					digest.update((byte) (in == null ? 0 : 1));
+					if (in != null) {
+						digest.update(in.readAllBytes());
+					}
+				}
+			}
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	/*
+	 * A hash of the class files of the compiler and runtime, and of the parser, so any rebuild of
+	 * them invalidates the cache even while the project version stays the same snapshot.
+	 */
+	private static String compilerVersion() throws IOException {
+		MessageDigest digest = newDigest();
+		digest.update(Integer.toString(FORMAT_VERSION).getBytes(StandardCharsets.UTF_8));
+
+		URL url = GameCache.class.getResource("GameCache.class");
+		if (url == null) {
+			throw new IOException("Cannot locate the compiler classes");
+		}
+		URLConnection connection = url.openConnection();
+		if (connection instanceof JarURLConnection jarConnection) {
+			// Cached by the URL handler, and shared with the class loader, so not closed here.
+			JarFile jarFile = jarConnection.getJarFile();
+			List<JarEntry> entries = jarFile.stream()
+					.filter(entry -> entry.getName().startsWith(GAME_PACKAGE) && entry.getName().endsWith(".class"))
+					.sorted((entry1, entry2) -> entry1.getName().compareTo(entry2.getName()))
+					.toList();
+			for (JarEntry entry : entries) {
+				try (InputStream in = jarFile.getInputStream(entry)) {
+					update(digest, entry.getName(), in.readAllBytes());
+				}
+			}
+		} else if ("file".equals(url.getProtocol())) {
+			Path packageDirectory;
+			try {
+				packageDirectory = Path.of(url.toURI()).getParent();
+			} catch (URISyntaxException e) {
+				throw new IOException(e);
+			}
+			List<Path> classFiles;
+			try (Stream<Path> paths = Files.walk(packageDirectory)) {
+				classFiles = paths.filter(path -> path.toString().endsWith(".class")).sorted().toList();
+			}
+			for (Path classFile : classFiles) {
+				String name = GAME_PACKAGE + packageDirectory.relativize(classFile).toString().replace(File.separatorChar, '/');
+				update(digest, name, Files.readAllBytes(classFile));
+			}
+		} else {
+			throw new IOException("Cannot read the compiler classes from " + url);
+		}
+
+		for (String parserClass : PARSER_CLASSES) {
+			// Read as a resource, so the runtime never loads the parser.
+			try (InputStream in = GameCache.class.getClassLoader().getResourceAsStream(parserClass)) {
+				update(digest, parserClass, in == null ? new byte[0] : in.readAllBytes());
+			}
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private static void update(MessageDigest digest, String name, byte[] bytes) {
+		digest.update(name.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		digest.update(bytes);
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
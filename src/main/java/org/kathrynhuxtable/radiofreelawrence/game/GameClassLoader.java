@@ -0,0 +1,83 @@
+package org.kathrynhuxtable.radiofreelawrence.game;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Defines the generated game classes straight from their bytes, so nothing has to be written to disk.
+ */
+public class GameClassLoader extends ClassLoader {
+
+	static {
+		registerAsParallelCapable();
+	}
+
+	private final Map<String, byte[]> classes = new LinkedHashMap<>();
+
+	public GameClassLoader(ClassLoader parent) {
+		super(parent);
+	}
+
+	/*
+	 * Add a generated class by its internal name, e.g. org/kathrynhuxtable/radiofreelawrence/game/Game$lamp.
+	 */
+	public synchronized void addClass(String internalName, byte[] bytes) {
+		classes.put(internalName.replace('/', '.'), bytes);
+	}
+
+	public synchronized Map<String, byte[]> getClasses() {
+		return Collections.unmodifiableMap(new LinkedHashMap<>(classes));
+	}
+
+	/*
+	 * Generated classes are defined here before asking the parent, so stale copies of them on the
+	 * application classpath, such as an old dump, can never shadow the bytes just compiled.
+	 */
+	@Override
+	protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+		boolean generated;
+		synchronized (this) {
+			generated = classes.containsKey(name);
+		}
+		if (!generated) {
+			return super.loadClass(name, resolve);
+		}
+		synchronized (getClassLoadingLock(name)) {
+			Class<?> loadedClass = findLoadedClass(name);
+			if (loadedClass == null) {
+				loadedClass = findClass(name);
+			}
+			if (resolve) {
+				resolveClass(loadedClass);
+			}
+			return loadedClass;
+		}
+	}
+
+	@Override
+	protected Class<?> findClass(String name) throws ClassNotFoundException {
+		byte[] bytes;
+		synchronized (this) {
+			bytes = classes.get(name);
+		}
+		if (bytes == null) {
+			throw new ClassNotFoundException(name);
+		}
+		return defineClass(name, bytes, 0, bytes.length);
+	}
+
+	/*
+	 * Write the class files under a directory, for inspecting the generated code.
+	 */
+	public void dump(Path directory) throws IOException {
+		for (Map.Entry<String, byte[]> entry : getClasses().entrySet()) {
+			Path file = directory.resolve(entry.getKey().replace('.', '/') + ".class");
+			Files.createDirectories(file.getParent());
+			Files.write(file, entry.getValue());
+		}
+	}
+}
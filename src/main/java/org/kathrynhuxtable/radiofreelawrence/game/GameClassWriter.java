@@ -0,0 +1,67 @@
+package org.kathrynhuxtable.radiofreelawrence.game;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+/*
+ * ClassWriter whose frame computation works out common superclasses from class file headers instead of
+ * loading classes. The generated game classes are not loadable while they are being written, and
+ * loading from several codegen threads would serialize on the class loader anyway.
+ */
+public class GameClassWriter extends ClassWriter {
+
+	private static final String OBJECT = "java/lang/Object";
+
+	// Superclass by internal name, or OBJECT for interfaces, as ClassWriter treats them.
+	private static final Map<String, String> SUPER_NAMES = new ConcurrentHashMap<>();
+
+	public GameClassWriter(int flags) {
+		super(flags);
+	}
+
+	@Override
+	protected String getCommonSuperClass(String type1, String type2) {
+		if (type1.equals(type2)) {
+			return type1;
+		}
+		for (String ancestor1 = type1; ancestor1 != null; ancestor1 = getSuperName(ancestor1)) {
+			for (String ancestor2 = type2; ancestor2 != null; ancestor2 = getSuperName(ancestor2)) {
+				if (ancestor1.equals(ancestor2)) {
+					return ancestor1;
+				}
+			}
+		}
+		return OBJECT;
+	}
+
+	private String getSuperName(String type) {
+		if (type.equals(OBJECT)) {
+			return null;
+		} else if (type.equals(GameContext.GAME_CLASS_NAME) || type.startsWith(GameContext.GAME_CLASS_NAME + "$")) {
+			// Game and its inner classes all extend Object.
+			return OBJECT;
+		}
+		return SUPER_NAMES.computeIfAbsent(type, GameClassWriter::readSuperName);
+	}
+
+	private static String readSuperName(String type) {
+		try (InputStream in = GameClassWriter.class.getClassLoader().getResourceAsStream(type + ".class")) {
+			if (in == null) {
+				return OBJECT;
+			}
+			ClassReader classReader = new ClassReader(in);
+			if ((classReader.getAccess() & Opcodes.ACC_INTERFACE) != 0 || classReader.getSuperName() == null) {
+				return OBJECT;
+			}
+			return classReader.getSuperName();
+		} catch (IOException e) {
+			return OBJECT;
+		}
+	}
+}
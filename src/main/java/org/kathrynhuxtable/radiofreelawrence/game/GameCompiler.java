@@ -0,0 +1,102 @@
+package org.kathrynhuxtable.radiofreelawrence.game;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import lombok.extern.slf4j.Slf4j;
+import org.objectweb.asm.ClassWriter;
+
+import org.kathrynhuxtable.radiofreelawrence.game.grammar.GameVisitor;
+import org.kathrynhuxtable.radiofreelawrence.game.grammar.SourceReader;
+import org.kathrynhuxtable.radiofreelawrence.game.grammar.VariableType;
+import org.kathrynhuxtable.radiofreelawrence.game.grammar.tree.DeclaratorNode;
+import org.kathrynhuxtable.radiofreelawrence.game.grammar.tree.ObjectNode;
+import org.kathrynhuxtable.radiofreelawrence.game.grammar.tree.PlaceNode;
+
+/*
+ * Parses the game sources and generates the game classes. Kept apart from the runtime so that
+ * starting from a cache or a prebuilt jar never loads the parser or ASM.
+ */
+@Slf4j
+public class GameCompiler {
+
+	private final GameSession session;
+	private List<String> sourceFiles = List.of();
+
+	public GameCompiler(GameSession session) {
+		this.session = session;
+	}
+
+	/*
+	 * The files read by the last compile, in the order they were included.
+	 */
+	public List<String> getSourceFiles() {
+		return sourceFiles;
+	}
+
+	public CompiledGame compile(String mainFile) throws IOException {
+		// Local, so the AST and the compile state go away once the classes are generated. The running
+		// game needs only the metadata and the classes.
+		GameContext gameContext = new GameContext(session);
+		gameContext.gameNode.createDefaultElements();
+
+		try (SourceReader sourceReader = new SourceReader()) {
+			GameVisitor visitor = new GameVisitor(gameContext.gameNode, gameContext.errorReporter, sourceReader);
+			visitor.readFile(mainFile, false);
+		}
+
+		gameContext.internalFunctions.validateGrammar();
+
+		// Since places exist once, create variables for them.
+		for (PlaceNode placeNode : gameContext.gameNode.getPlaces()) {
+			gameContext.variableStore.addVariable(placeNode.getName(), VariableType.PLACE);
+		}
+
+		// Generate main Game class
+		long start = System.nanoTime();
+		ClassWriter cw = new GameClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+		gameContext.gameNode.generate(cw, gameContext);
+		defineClass(null, cw.toByteArray());
+
+		// Generate object and place inner classes in parallel, each with its own context, then define them
+		// in declaration order so the output does not depend on scheduling.
+		List<DeclaratorNode> innerClasses = new ArrayList<>();
+		List<String> innerNames = new ArrayList<>();
+		for (ObjectNode objectNode : gameContext.gameNode.getObjects()) {
+			innerClasses.add(objectNode);
+			innerNames.add(objectNode.getName());
+		}
+		for (PlaceNode placeNode : gameContext.gameNode.getPlaces()) {
+			innerClasses.add(placeNode);
+			innerNames.add(placeNode.getName());
+		}
+		byte[][] innerBytes = new byte[innerClasses.size()][];
+		IntStream.range(0, innerClasses.size()).parallel().forEach(index -> {
+			ClassWriter innerCw = new GameClassWriter(ClassWriter.COMPUTE_FRAMES);
+			innerClasses.get(index).generate(innerCw, gameContext.forClass());
+			innerBytes[index] = innerCw.toByteArray();
+		});
+		for (int index = 0; index < innerClasses.size(); index++) {
+			defineClass(innerNames.get(index), innerBytes[index]);
+		}
+		log.info("Generated {} classes in {} ms", innerClasses.size() + 1, (System.nanoTime() - start) / 1_000_000);
+		for (String error : gameContext.errorReporter.getErrors()) {
+			log.error(error);
+		}
+
+		GameMetadata metadata = GameMetadata.of(gameContext.gameNode);
+		sourceFiles = List.copyOf(gameContext.gameNode.getSourceFiles());
+		session.internalFunctions.setMetadata(metadata);
+		return new CompiledGame(metadata, session.classLoader.getClasses());
+	}
+
+	private void defineClass(String innerClassName, byte[] bytes) {
+		String className = GameContext.GAME_CLASS_NAME;
+		if (innerClassName != null) {
+			className += "$" + innerClassName;
+		}
+		session.classLoader.addClass(className, bytes);
+	}
+}
@@ -1,22 +1,78 @@
 package org.kathrynhuxtable.radiofreelawrence.game;
 
-import lombok.AllArgsConstructor;
 import lombok.Data;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
 
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.ErrorReporter;
+import org.kathrynhuxtable.radiofreelawrence.game.grammar.SourceLocation;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.tree.GameNode;
 
 @Data
-@AllArgsConstructor
 public class GameContext {
 	public static final String GAME_CLASS_PACKAGE = "org/kathrynhuxtable/radiofreelawrence/game";
 	public static final String GAME_CLASS_NAME = GAME_CLASS_PACKAGE + "/Game";
 	public static final String GAME_CLASS_DESCRIPTOR = "L" +  GAME_CLASS_NAME + ";";
 
-	public final VariableStore variableStore = new VariableStore();
+	public final VariableStore variableStore;
 
-	public final GameNode gameNode = new GameNode();
-	public final ErrorReporter errorReporter = new ErrorReporter();
+	public final GameNode gameNode;
+	public final ErrorReporter errorReporter;
 
-	public final InternalFunctions internalFunctions = new InternalFunctions(this);
+	public final InternalFunctions internalFunctions;
+
+	public final GameClassLoader classLoader;
+
+	// Last line number emitted into the method being generated.
+	private int lineNumber = 0;
+
+	/*
+	 * A context for compiling a game into a session. Only the compiler creates one, and drops it with
+	 * the AST once the classes are generated.
+	 */
+	public GameContext(GameSession session) {
+		variableStore = new VariableStore();
+		gameNode = new GameNode();
+		errorReporter = new ErrorReporter();
+		internalFunctions = session.internalFunctions;
+		classLoader = session.classLoader;
+	}
+
+	private GameContext(GameContext parent) {
+		variableStore = parent.variableStore.forClass();
+		gameNode = parent.gameNode;
+		errorReporter = parent.errorReporter;
+		internalFunctions = parent.internalFunctions;
+		classLoader = parent.classLoader;
+	}
+
+	/*
+	 * A context for generating one inner class. It shares the game and the global variables, but has its
+	 * own scopes and line numbers, so inner classes can be generated concurrently.
+	 */
+	public GameContext forClass() {
+		return new GameContext(this);
+	}
+
+	public void setSourceFile(ClassVisitor cv, SourceLocation sourceLocation) {
+		cv.visitSource(sourceLocation.getFilePath(), null);
+		lineNumber = 0;
+	}
+
+	public void setLineNumber(MethodVisitor mv, SourceLocation sourceLocation) {
+		if (sourceLocation.getLine() != lineNumber) {
+			lineNumber = sourceLocation.getLine();
+			Label label = new Label();
+			mv.visitLabel(label);
+			mv.visitLineNumber(lineNumber, label);
+		}
+	}
+
+	public void setLineNumber(MethodVisitor mv, SourceLocation sourceLocation, Label label) {
+		if (sourceLocation.getLine() != lineNumber) {
+			lineNumber = sourceLocation.getLine();
+			mv.visitLineNumber(lineNumber, label);
+		}
+	}
 }
@@ -0,0 +1,13 @@
+package org.kathrynhuxtable.radiofreelawrence.game;
+
+/*
+ * runInits and runTurn start at block "first" and return the position of the block that stopped
+ * to wait for input, or -1 when they ran to the end. A waiting block is run again from its start
+ * when resumed. The compiler only accepts input() as the first statement of an initial or repeat
+ * block, so nothing before it is replayed.
+ */
+public interface GameDriver {
+	int runInits(int first);
+
+	int runTurn(int first);
+}
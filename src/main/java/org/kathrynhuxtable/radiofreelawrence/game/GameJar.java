@@ -0,0 +1,67 @@
+package org.kathrynhuxtable.radiofreelawrence.game;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.jar.*;
+
+/*
+ * A compiled game packaged ahead of time: the class files in package layout, plus the metadata
+ * as a resource.
+ */
+public class GameJar {
+
+	public static final String METADATA_ENTRY = "META-INF/game/metadata";
+
+	public static void write(Path path, CompiledGame compiledGame) throws IOException {
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		Path parent = path.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+
+		try (JarOutputStream out = new JarOutputStream(new BufferedOutputStream(Files.newOutputStream(path)), manifest)) {
+			for (Map.Entry<String, byte[]> entry : compiledGame.classes().entrySet()) {
+				out.putNextEntry(new JarEntry(entry.getKey().replace('.', '/') + ".class"));
+				out.write(entry.getValue());
+				out.closeEntry();
+			}
+
+			out.putNextEntry(new JarEntry(METADATA_ENTRY));
+			DataOutputStream data = new DataOutputStream(out);
+			compiledGame.metadata().write(data);
+			data.flush();
+			out.closeEntry();
+		}
+	}
+
+	public static CompiledGame read(Path path) throws IOException {
+		try (JarFile jar = new JarFile(path.toFile())) {
+			JarEntry metadataEntry = jar.getJarEntry(METADATA_ENTRY);
+			if (metadataEntry == null) {
+				throw new IOException(path + " is not a compiled game");
+			}
+			GameMetadata metadata;
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(jar.getInputStream(metadataEntry)))) {
+				metadata = GameMetadata.read(in);
+			}
+
+			Map<String, byte[]> classes = new LinkedHashMap<>();
+			Enumeration<JarEntry> entries = jar.entries();
+			while (entries.hasMoreElements()) {
+				JarEntry entry = entries.nextElement();
+				String name = entry.getName();
+				if (name.endsWith(".class")) {
+					try (InputStream in = jar.getInputStream(entry)) {
+						classes.put(name.substring(0, name.length() - ".class".length()).replace('/', '.'), in.readAllBytes());
+					}
+				}
+			}
+			return new CompiledGame(metadata, classes);
+		}
+	}
+}
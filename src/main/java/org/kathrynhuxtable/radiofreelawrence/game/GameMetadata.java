@@ -0,0 +1,166 @@
+package org.kathrynhuxtable.radiofreelawrence.game;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.kathrynhuxtable.radiofreelawrence.game.grammar.tree.GameNode;
+import org.kathrynhuxtable.radiofreelawrence.game.grammar.tree.ObjectNode;
+import org.kathrynhuxtable.radiofreelawrence.game.grammar.tree.VocabularyNode;
+
+/*
+ * What the runtime needs from the compiler besides the generated classes, small enough to cache with them.
+ * It is immutable and holds no AST nodes, so one instance can serve every session once the compiler is gone.
+ * All strings are interned, sharing them with the constants of the generated classes.
+ *
+ *   vocabulary  input words and abbreviations resolved to their canonical names
+ *   wordIds     the ids compiled into doAction dispatch for each word
+ *   places      the index of each place, for the game's PlaceTable
+ */
+public record GameMetadata(
+		Map<String, String> info,
+		VocabularyIndex vocabulary,
+		Set<String> noise,
+		Map<String, Integer> wordIds,
+		List<String> actions,
+		Map<String, Integer> places,
+		List<String> objects,
+		int statusFlagIndex,
+		boolean hasRepeats) {
+
+	public GameMetadata {
+		info = Collections.unmodifiableMap(new LinkedHashMap<>(info));
+		noise = Set.copyOf(intern(noise));
+		wordIds = internKeys(wordIds);
+		actions = List.copyOf(intern(actions));
+		places = internKeys(places);
+		objects = List.copyOf(intern(objects));
+	}
+
+	public static GameMetadata of(GameNode gameNode) {
+		List<String> objects = new ArrayList<>();
+		for (ObjectNode objectNode : gameNode.getObjects()) {
+			objects.add(objectNode.getName());
+		}
+		return new GameMetadata(
+				gameNode.getInfo(),
+				new VocabularyIndex(gameNode.getVerbs(), VocabularyNode::getName),
+				Set.copyOf(gameNode.getNoise()),
+				gameNode.getWordIds(),
+				List.copyOf(gameNode.getActions().keySet()),
+				gameNode.getPlaceIndexes(),
+				objects,
+				gameNode.getVariableFlagIndex("status"),
+				!gameNode.getRepeats().isEmpty());
+	}
+
+	public void write(DataOutput out) throws IOException {
+		writeMap(out, info);
+		out.writeInt(vocabulary.size());
+		for (int i = 0; i < vocabulary.size(); i++) {
+			out.writeUTF(vocabulary.getWord(i));
+			out.writeUTF(vocabulary.getName(i));
+		}
+		writeList(out, List.copyOf(new TreeSet<>(noise)));
+		writeIds(out, wordIds);
+		writeList(out, actions);
+		writeIds(out, places);
+		writeList(out, objects);
+		out.writeInt(statusFlagIndex);
+		out.writeBoolean(hasRepeats);
+	}
+
+	public static GameMetadata read(DataInput in) throws IOException {
+		Map<String, String> info = readMap(in);
+		int vocabularySize = in.readInt();
+		String[] vocabularyWords = new String[vocabularySize];
+		String[] vocabularyNames = new String[vocabularySize];
+		for (int i = 0; i < vocabularySize; i++) {
+			vocabularyWords[i] = in.readUTF();
+			vocabularyNames[i] = in.readUTF();
+		}
+		return new GameMetadata(
+				info,
+				new VocabularyIndex(vocabularyWords, vocabularyNames),
+				Set.copyOf(readList(in)),
+				readIds(in),
+				readList(in),
+				readIds(in),
+				readList(in),
+				in.readInt(),
+				in.readBoolean());
+	}
+
+	private static List<String> intern(Iterable<String> strings) {
+		List<String> interned = new ArrayList<>();
+		for (String string : strings) {
+			interned.add(string.intern());
+		}
+		return interned;
+	}
+
+	private static Map<String, Integer> internKeys(Map<String, Integer> ids) {
+		Map<String, Integer> interned = new HashMap<>(ids.size() * 2);
+		ids.forEach((key, id) -> interned.put(key.intern(), id));
+		return Map.copyOf(interned);
+	}
+
+	/*
+	 * Ids are 0 to size - 1, so only the keys are written, in id order.
+	 */
+	private static void writeIds(DataOutput out, Map<String, Integer> ids) throws IOException {
+		String[] keys = new String[ids.size()];
+		ids.forEach((key, id) -> keys[id] = key);
+		writeList(out, List.of(keys));
+	}
+
+	private static Map<String, Integer> readIds(DataInput in) throws IOException {
+		List<String> keys = readList(in);
+		Map<String, Integer> ids = new HashMap<>(keys.size() * 2);
+		for (int id = 0; id < keys.size(); id++) {
+			ids.put(keys.get(id), id);
+		}
+		return ids;
+	}
+
+	private static void writeMap(DataOutput out, Map<String, String> map) throws IOException {
+		out.writeInt(map.size());
+		for (Map.Entry<String, String> entry : map.entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeUTF(entry.getValue());
+		}
+	}
+
+	private static Map<String, String> readMap(DataInput in) throws IOException {
+		int size = in.readInt();
+		Map<String, String> map = new LinkedHashMap<>();
+		for (int i = 0; i < size; i++) {
+			map.put(in.readUTF(), in.readUTF());
+		}
+		return map;
+	}
+
+	private static void writeList(DataOutput out, List<String> list) throws IOException {
+		out.writeInt(list.size());
+		for (String string : list) {
+			out.writeUTF(string);
+		}
+	}
+
+	private static List<String> readList(DataInput in) throws IOException {
+		int size = in.readInt();
+		List<String> list = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			list.add(in.readUTF());
+		}
+		return list;
+	}
+}
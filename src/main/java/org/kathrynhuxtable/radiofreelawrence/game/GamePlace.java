@@ -1,6 +1,7 @@
 package org.kathrynhuxtable.radiofreelawrence.game;
 
 import java.util.List;
+import java.util.Set;
 
 public interface GamePlace extends GameFlag {
 	String getName();
@@ -10,5 +11,7 @@ public interface GamePlace extends GameFlag {
 	String getBriefDescription();
 	String getLongDescription();
 
+	Set<GameObject> getContents();
+
 //	String getSourceLocationText();
 }
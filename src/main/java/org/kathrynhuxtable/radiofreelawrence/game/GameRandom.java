@@ -0,0 +1,40 @@
+package org.kathrynhuxtable.radiofreelawrence.game;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/*
+ * The random source for one game session. Texts and internal functions hold on to this
+ * instance, so reseeding it replays every random choice the game makes.
+ */
+public class GameRandom implements RandomGenerator {
+
+	private SplittableRandom random;
+
+	public GameRandom() {
+		random = new SplittableRandom();
+	}
+
+	public GameRandom(long seed) {
+		random = new SplittableRandom(seed);
+	}
+
+	public void setSeed(long seed) {
+		random = new SplittableRandom(seed);
+	}
+
+	@Override
+	public long nextLong() {
+		return random.nextLong();
+	}
+
+	@Override
+	public int nextInt(int bound) {
+		return random.nextInt(bound);
+	}
+
+	@Override
+	public int nextInt(int origin, int bound) {
+		return random.nextInt(origin, bound);
+	}
+}
@@ -1,96 +1,140 @@
 package org.kathrynhuxtable.radiofreelawrence.game;
 
 import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.List;
 import java.util.Map;
 
-import org.kathrynhuxtable.radiofreelawrence.game.exception.BreakException;
-import org.kathrynhuxtable.radiofreelawrence.game.exception.ContinueException;
+import lombok.extern.slf4j.Slf4j;
+
+import org.kathrynhuxtable.radiofreelawrence.game.exception.EndOfInputException;
 import org.kathrynhuxtable.radiofreelawrence.game.exception.GameRuntimeException;
-import org.kathrynhuxtable.radiofreelawrence.game.grammar.ControlType;
-import org.kathrynhuxtable.radiofreelawrence.game.grammar.tree.InitialNode;
-import org.kathrynhuxtable.radiofreelawrence.game.grammar.tree.RepeatNode;
+import org.kathrynhuxtable.radiofreelawrence.game.io.GameOutput;
+import org.kathrynhuxtable.radiofreelawrence.game.io.MemoryOutput;
 
+/*
+ * Runs one game session, either blocking on its input source with run(), or one command at a
+ * time with start() and step().
+ */
+@Slf4j
 public class GameRunner {
 
-	public void run(GameContext gameContext) throws Exception {
-		Class<?> myClass = Class.forName(GameContext.GAME_CLASS_NAME.replaceAll("/", "."));
-		Constructor<?> constructor = myClass.getConstructor(InternalFunctions.class);
-		Object instance = constructor.newInstance(gameContext.getInternalFunctions());
+	private GameSession session;
+	private GameDriver game;
+	private MemoryOutput stepOutput;
+	private int initPosition;
+	private int turnPosition;
 
-		displayInfo(gameContext.gameNode.getInfo());
+	public void run(GameSession session) throws Exception {
+		GameDriver game = createGame(session);
+		InternalFunctions internalFunctions = session.getInternalFunctions();
+		GameOutput output = internalFunctions.getOutput();
 
-		callInits(gameContext.gameNode.getInits(), myClass, instance);
+		displayInfo(output, internalFunctions.getMetadata().info());
 
-		if (!gameContext.gameNode.getRepeats().isEmpty()) {
-			for (; ; ) {
-				try {
-					callRepeats(gameContext.gameNode.getRepeats(), myClass, instance);
-				} catch (GameRuntimeException e) {
-					e.printStackTrace(System.out);
+		try {
+			game.runInits(0);
+
+			if (internalFunctions.getMetadata().hasRepeats()) {
+				while (!internalFunctions.isStopped()) {
+					try {
+						game.runTurn(0);
+					} catch (EndOfInputException e) {
+						throw e;
+					} catch (GameRuntimeException e) {
+						output.flush();
+						turnFailed(e);
+					} finally {
+						output.flush();
+					}
 				}
 			}
+		} catch (EndOfInputException e) {
+			// A script or stream ran out of commands.
+		} finally {
+			output.flush();
 		}
 	}
 
-	private void displayInfo(Map<String, String> info) {
-		int maxLabel = 0;
-		for (String key : info.keySet()) {
-			if (key.length() > maxLabel) {
-				maxLabel = key.length();
-			}
+	/*
+	 * Create the game and run it up to its first request for input.
+	 */
+	public StepResult start(GameSession session) throws ReflectiveOperationException {
+		this.session = session;
+		stepOutput = new MemoryOutput();
+		session.getInternalFunctions().setOutput(stepOutput);
+		session.getInternalFunctions().setStepping(true);
+		game = createGame(session);
+
+		displayInfo(stepOutput, session.getInternalFunctions().getMetadata().info());
+
+		return resume();
+	}
+
+	/*
+	 * Run the game with one command until it asks for the next one. Never blocks.
+	 */
+	public StepResult step(String command) {
+		if (game == null) {
+			throw new GameRuntimeException("step() called before start()");
 		}
-		for (Map.Entry<String, String> entry : info.entrySet()) {
-			System.out.printf("%-" + maxLabel + "s : %s%n", entry.getKey(), entry.getValue());
+		InternalFunctions internalFunctions = session.getInternalFunctions();
+		if (internalFunctions.isStopped()) {
+			return new StepResult("", StepResult.Status.STOPPED);
 		}
-		System.out.println();
+		internalFunctions.submit(command);
+		return resume();
 	}
 
-	private void callInits(List<InitialNode> inits, Class<?> myClass, Object instance) {
-		for (InitialNode init : inits) {
-			String name = "initialProc" + init.getIndex();
-			try {
-				Method method = myClass.getDeclaredMethod(name);
-				method.invoke(instance);
-			} catch (InvocationTargetException e) {
-				if (e.getCause() instanceof BreakException) {
-					break;
-				} else if (e.getCause() instanceof ContinueException) {
-					// Implicit continue
-					;
-				} else {
-					throw new RuntimeException(e);
-				}
-			} catch (NoSuchMethodException | IllegalAccessException e) {
-				throw new RuntimeException(e);
+	private StepResult resume() {
+		InternalFunctions internalFunctions = session.getInternalFunctions();
+		if (initPosition >= 0) {
+			initPosition = game.runInits(initPosition);
+			if (initPosition >= 0) {
+				return new StepResult(stepOutput.take(), StepResult.Status.AWAITING_INPUT);
 			}
 		}
-	}
 
-	private void callRepeats(List<RepeatNode> repeats, Class<?> myClass, Object instance) {
-		for (; ; ) {
-			for (RepeatNode repeat : repeats) {
-				String name = "repeatProc" + repeat.getIndex();
+		if (internalFunctions.getMetadata().hasRepeats()) {
+			while (!internalFunctions.isStopped()) {
+				int position;
 				try {
-					Method method = myClass.getDeclaredMethod(name);
-					method.invoke(instance);
-				} catch (InvocationTargetException e) {
-					if (e.getCause() instanceof BreakException breakException) {
-						if (breakException.getControlType() == ControlType.REPEAT) {
-							break;
-						}
-					} else if (e.getCause() instanceof ContinueException) {
-						// Restart from the beginning
-						break;
-					}  else {
-						throw new RuntimeException(e);
-					}
-				} catch (NoSuchMethodException | IllegalAccessException e) {
-					throw new RuntimeException(e);
+					position = game.runTurn(turnPosition);
+				} catch (GameRuntimeException e) {
+					turnFailed(e);
+					position = -1;
+				}
+				if (position >= 0) {
+					turnPosition = position;
+					return new StepResult(stepOutput.take(), StepResult.Status.AWAITING_INPUT);
 				}
+				turnPosition = 0;
+			}
+		}
+		return new StepResult(stepOutput.take(), StepResult.Status.STOPPED);
+	}
+
+	/*
+	 * A failed turn is logged and the game goes on with the next one, whether it is run or stepped.
+	 */
+	private void turnFailed(GameRuntimeException e) {
+		log.error("Turn failed", e);
+	}
+
+	private GameDriver createGame(GameSession session) throws ReflectiveOperationException {
+		Class<?> myClass = session.getClassLoader().loadClass(GameContext.GAME_CLASS_NAME.replace('/', '.'));
+		Constructor<?> constructor = myClass.getConstructor(InternalFunctions.class);
+		return (GameDriver) constructor.newInstance(session.getInternalFunctions());
+	}
+
+	private void displayInfo(GameOutput output, Map<String, String> info) {
+		int maxLabel = 0;
+		for (String key : info.keySet()) {
+			if (key.length() > maxLabel) {
+				maxLabel = key.length();
 			}
 		}
+		for (Map.Entry<String, String> entry : info.entrySet()) {
+			output.println(String.format("%-" + maxLabel + "s : %s", entry.getKey(), entry.getValue()));
+		}
+		output.println();
 	}
 }
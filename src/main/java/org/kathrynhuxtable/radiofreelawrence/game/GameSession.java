@@ -0,0 +1,21 @@
+package org.kathrynhuxtable.radiofreelawrence.game;
+
+import lombok.Data;
+
+/*
+ * What a running game needs: its internal functions and the loader holding its classes. Unlike
+ * GameContext, which exists only while compiling, it references neither ASM nor the AST, so
+ * starting from a cache or a prebuilt jar loads neither.
+ */
+@Data
+public class GameSession {
+
+	public final InternalFunctions internalFunctions;
+
+	public final GameClassLoader classLoader;
+
+	public GameSession() {
+		internalFunctions = new InternalFunctions();
+		classLoader = new GameClassLoader(GameSession.class.getClassLoader());
+	}
+}
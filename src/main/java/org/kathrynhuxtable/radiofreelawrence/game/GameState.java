@@ -0,0 +1,35 @@
+package org.kathrynhuxtable.radiofreelawrence.game;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Kernel-maintained variables of the generated Game class, accessed directly instead of by reflection.
+ * The Game class is also the context its text templates are rendered in.
+ */
+public interface GameState extends TextTemplate.Context {
+	Object getHere();
+	void setHere(Object here);
+
+	Object getThere();
+	void setThere(Object there);
+
+	String getArg1();
+	void setArg1(String arg1);
+
+	String getArg2();
+	void setArg2(String arg2);
+
+	int getStatus();
+	void setStatus(int status);
+
+	int getMoved();
+
+	int getBadword();
+	int getAmbigword();
+	int getBadsyntax();
+
+	PlaceTable getPlaces();
+	Map<String, List<GameObject>> getObjects();
+	int[] getVariableFlags();
+}
@@ -0,0 +1,80 @@
+package org.kathrynhuxtable.radiofreelawrence.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.commons.CodeSizeEvaluator;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/*
+ * Spreads a long run of initialization code over private helper methods, starting a new one
+ * whenever the current one has grown past MAX_CODE_SIZE. This keeps the generated constructor
+ * clear of the 64KB method limit, and each helper small enough for the JIT to compile. Static
+ * helpers serve the class initializer the same way.
+ */
+public class InitChunker {
+
+	// HotSpot never compiles methods with more than 8000 bytes of bytecode.
+	public static final int MAX_CODE_SIZE = 7000;
+
+	private final ClassVisitor cv;
+	private final String owner;
+	private final String prefix;
+	private final boolean isStatic;
+	private final List<String> methodNames = new ArrayList<>();
+	private CodeSizeEvaluator current;
+
+	public InitChunker(ClassVisitor cv, String owner, String prefix) {
+		this(cv, owner, prefix, false);
+	}
+
+	public InitChunker(ClassVisitor cv, String owner, String prefix, boolean isStatic) {
+		this.cv = cv;
+		this.owner = owner;
+		this.prefix = prefix;
+		this.isStatic = isStatic;
+	}
+
+	/*
+	 * The method to emit the next item into. Each item must leave the operand stack empty, and may
+	 * only use local 0, this, or no locals at all if the helpers are static.
+	 */
+	public MethodVisitor next() {
+		if (current == null || current.getMaxSize() > MAX_CODE_SIZE) {
+			endMethod();
+			String methodName = prefix + methodNames.size();
+			methodNames.add(methodName);
+			int access = isStatic ? ACC_PRIVATE | ACC_STATIC : ACC_PRIVATE;
+			current = new CodeSizeEvaluator(cv.visitMethod(access, methodName, "()V", null, null));
+			current.visitCode();
+		}
+		return current;
+	}
+
+	/*
+	 * Finish the last helper, and call all of them in order from mv.
+	 */
+	public void callFrom(MethodVisitor mv) {
+		endMethod();
+		for (String methodName : methodNames) {
+			if (isStatic) {
+				mv.visitMethodInsn(INVOKESTATIC, owner, methodName, "()V", false);
+			} else {
+				mv.visitVarInsn(ALOAD, 0);
+				mv.visitMethodInsn(INVOKESPECIAL, owner, methodName, "()V", false);
+			}
+		}
+	}
+
+	private void endMethod() {
+		if (current != null) {
+			current.visitInsn(RETURN);
+			current.visitMaxs(0, 0);
+			current.visitEnd();
+			current = null;
+		}
+	}
+}
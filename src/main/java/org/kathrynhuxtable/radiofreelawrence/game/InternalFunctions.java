@@ -1,151 +1,149 @@
 package org.kathrynhuxtable.radiofreelawrence.game;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import org.kathrynhuxtable.gdesc.parser.GameInfo;
 import org.kathrynhuxtable.gdesc.parser.InternalFunction;
-import org.kathrynhuxtable.radiofreelawrence.game.exception.BreakException;
+import org.kathrynhuxtable.radiofreelawrence.game.exception.EndOfInputException;
 import org.kathrynhuxtable.radiofreelawrence.game.exception.GameRuntimeException;
-import org.kathrynhuxtable.radiofreelawrence.game.grammar.ControlType;
-import org.kathrynhuxtable.radiofreelawrence.game.grammar.tree.VocabularyNode;
+import org.kathrynhuxtable.radiofreelawrence.game.grammar.ControlSignal;
+import org.kathrynhuxtable.radiofreelawrence.game.io.ConsoleOutput;
+import org.kathrynhuxtable.radiofreelawrence.game.io.GameInput;
+import org.kathrynhuxtable.radiofreelawrence.game.io.GameOutput;
+import org.kathrynhuxtable.radiofreelawrence.game.io.ReaderInput;
 
 public class InternalFunctions {
 
-	private final GameContext gameContext;
+	private GameMetadata metadata;
+	private GameState game;
+	private int statusFlagIndex;
 
-	private Object game;
-	private Set<String> noise;
-	private Map<String, GamePlace> places;
-	private Map<String, List<GameObject>> objects;
-	private Map<String, Integer> variableFlags;
+	private GameInput input = ReaderInput.console();
+	private GameOutput output = new ConsoleOutput();
 
-	private final Scanner scanner = new Scanner(System.in, StandardCharsets.UTF_8);
+	// Tokens of the last input, reused from turn to turn. wordCount is -1 until the first input.
+	private String[] words = new String[8];
+	private int wordCount = -1;
+	private final BitSet wordIdSet = new BitSet();
 
-	private String[] words;
+	private String arg1;
+	private int arg1Id;
+	private String arg2;
+	private int arg2Id;
 
-	public InternalFunctions(GameContext gameContext) {
-		this.gameContext = gameContext;
-	}
+	private ControlSignal controlSignal = ControlSignal.NONE;
+	private boolean stopped;
 
-	public void setGame(Object game) {
-		this.game = game;
+	private boolean stepping;
+	private String command;
+
+	private final GameRandom random = new GameRandom();
+
+	public GameInput getInput() {
+		return input;
 	}
 
-	private int getIntVar(String name) {
-		Class<?> gameClass = game.getClass();
+	public void setInput(GameInput input) {
+		this.input = input;
+	}
 
-		try {
-			Field field = gameClass.getDeclaredField(name);
-			return (int) field.get(game);
-		} catch (NoSuchFieldException | IllegalAccessException e) {
-			throw new RuntimeException(e);
-		}
+	public GameOutput getOutput() {
+		return output;
 	}
 
-	private void setIntVar(String name, int value) {
-		Class<?> gameClass = game.getClass();
+	public void setOutput(GameOutput output) {
+		this.output = output;
+	}
 
-		try {
-			Field field = gameClass.getDeclaredField(name);
-			field.set(game, value);
-		} catch (NoSuchFieldException | IllegalAccessException e) {
-			throw new RuntimeException(e);
-		}
+	public GameRandom getRandom() {
+		return random;
 	}
 
-	private <T> T getObjectVar(String name) {
-		Class<?> gameClass = game.getClass();
+	public void setSeed(long seed) {
+		random.setSeed(seed);
+	}
 
-		try {
-			Field field = gameClass.getDeclaredField(name);
-			return (T) field.get(game);
-		} catch (NoSuchFieldException | IllegalAccessException e) {
-			throw new RuntimeException(e);
-		}
+	public GameMetadata getMetadata() {
+		return metadata;
 	}
 
-	private <T> void setObjectVar(String name, T value) {
-		Class<?> gameClass = game.getClass();
+	public void setMetadata(GameMetadata metadata) {
+		this.metadata = metadata;
+	}
 
-		try {
-			Field field = gameClass.getDeclaredField(name);
-			field.set(game, value);
-		} catch (NoSuchFieldException | IllegalAccessException e) {
-			throw new RuntimeException(e);
-		}
+	public void setGame(GameState game) {
+		this.game = game;
+		this.statusFlagIndex = metadata.statusFlagIndex();
 	}
 
-	private <T> void putObjectVar(String name, T value) {
-		Class<?> gameClass = game.getClass();
+	// Control signals replace the old BreakException/ContinueException. The generated code checks
+	// isSignalled() after every call that can raise one and returns from the current method.
 
-		try {
-			Field field = gameClass.getDeclaredField(name);
-			field.set(game, value);
-		} catch (NoSuchFieldException | IllegalAccessException e) {
-			throw new RuntimeException(e);
-		}
+	public boolean isSignalled() {
+		return controlSignal != ControlSignal.NONE;
 	}
 
-	private Set<String> getNoise() {
-		Class<?> gameClass = game.getClass();
+	public void signal(ControlSignal controlSignal) {
+		this.controlSignal = controlSignal;
+	}
 
-		if (this.noise == null) {
-			try {
-				Field placesField = gameClass.getDeclaredField("noise");
-				this.noise = (Set<String>) placesField.get(game);
-			} catch (NoSuchFieldException | IllegalAccessException e) {
-				throw new RuntimeException(e);
-			}
-		}
-		return this.noise;
+	public boolean endTurn() {
+		ControlSignal signal = controlSignal;
+		controlSignal = ControlSignal.NONE;
+		return signal == ControlSignal.BREAK_REPEAT || signal == ControlSignal.CONTINUE || signal == ControlSignal.STOP;
 	}
 
-	private Map<String, GamePlace> getPlaces() {
-		Class<?> gameClass = game.getClass();
+	public boolean endInits() {
+		ControlSignal signal = controlSignal;
+		controlSignal = ControlSignal.NONE;
+		return signal == ControlSignal.BREAK || signal == ControlSignal.BREAK_REPEAT || signal == ControlSignal.STOP;
+	}
 
-		if (this.places == null) {
-			try {
-				Field placesField = gameClass.getDeclaredField("places");
-				this.places = (Map<String, GamePlace>) placesField.get(game);
-			} catch (NoSuchFieldException | IllegalAccessException e) {
-				throw new RuntimeException(e);
-			}
+	public boolean isAwaitingInput() {
+		if (controlSignal == ControlSignal.AWAIT_INPUT) {
+			controlSignal = ControlSignal.NONE;
+			return true;
 		}
-		return this.places;
+		return false;
 	}
 
-	private Map<String, List<GameObject>> getObjects() {
-		Class<?> gameClass = game.getClass();
+	public boolean isStopped() {
+		return stopped;
+	}
 
-		if (this.places == null) {
-			try {
-				Field objectsField = gameClass.getDeclaredField("objects");
-				this.objects = (Map<String, List<GameObject>>) objectsField.get(game);
-			} catch (NoSuchFieldException | IllegalAccessException e) {
-				throw new RuntimeException(e);
-			}
-		}
-		return this.objects;
+	// In stepping mode input() never blocks: it takes the command passed to submit(), or signals
+	// AWAIT_INPUT so that the runner can return and resume the waiting block with the next command.
+
+	public void setStepping(boolean stepping) {
+		this.stepping = stepping;
 	}
 
-	private Map<String, Integer> getVariableFlags() {
-		Class<?> gameClass = game.getClass();
-		if (this.variableFlags == null) {
-			try {
-				Field objectsField = gameClass.getDeclaredField("variableFlags");
-				this.variableFlags = (Map<String, Integer>) objectsField.get(game);
-			} catch (NoSuchFieldException | IllegalAccessException e) {
-				throw new RuntimeException(e);
-			}
+	public void submit(String command) {
+		this.command = command;
+	}
+
+	/*
+	 * Map a word to its vocabulary id for doAction dispatch: 0 for no word, -1 for a word not in the vocabulary.
+	 * The words from the last parsed input are answered without a lookup.
+	 */
+	public int wordId(String word) {
+		if (word == null || word.isEmpty()) {
+			return 0;
+		} else if (word == arg1) {
+			return arg1Id;
+		} else if (word == arg2) {
+			return arg2Id;
 		}
-		return variableFlags;
+		Integer id = metadata.wordIds().get(word);
+		return id == null ? -1 : id;
 	}
 
+	private final StringBuilder textBuilder = new StringBuilder(256);
+
 	private Map<String, String> internalFunctions;
 
 	public String getInternalFunction(String name) {
@@ -165,6 +163,19 @@ public class InternalFunctions {
 		return internalFunctions;
 	}
 
+	/*
+	 * Find a non-varargs overload of an internal function matching the static argument types, or null if the
+	 * varargs form must be used.
+	 */
+	public Method getTypedInternalFunction(String methodName, Class<?>... parameterTypes) {
+		try {
+			Method method = InternalFunctions.class.getMethod(methodName, parameterTypes);
+			return !method.isVarArgs() && method.getReturnType() == int.class ? method : null;
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
 	public void validateGrammar() {
 		Set<String> internalFunctions = getInternalFunctions().keySet();
 		Set<String> grammarInternalFunctions = new GameInfo().getInternalFunctionNames();
@@ -193,25 +204,63 @@ public class InternalFunctions {
 
 	@InternalFunction(name = "input")
 	public int input(Object... parameters) {
-		clearFlag("status", getIntVar("moved"));
+		return input();
+	}
 
-		System.out.print("? ");
-		String text = scanner.nextLine();
+	public int input() {
+		clearFlag(statusFlagIndex, game.getMoved());
+
+		String text = readCommand();
+		if (text == null) {
+			signal(ControlSignal.AWAIT_INPUT);
+			return 0;
+		}
 
 		parseInput(text);
 
 		return 0;
 	}
 
+	private String readCommand() {
+		if (stepping) {
+			String text = command;
+			command = null;
+			if (text == null) {
+				output.print("? ");
+			}
+			return text;
+		}
+
+		output.print("? ");
+		output.flush();
+		String text;
+		try {
+			text = input.readLine();
+		} catch (IOException e) {
+			throw new GameRuntimeException("unable to read input", e);
+		}
+		if (text == null) {
+			throw new EndOfInputException();
+		}
+		return text;
+	}
+
 	@InternalFunction(name = "in")
 	public int inrange(Object... parameters) {
-		int value = (int) parameters[0];
-		return (value >= (int) parameters[1] && value <= (int) parameters[2]) ? 1 : 0;
+		return inrange((int) parameters[0], (int) parameters[1], (int) parameters[2]);
+	}
+
+	public int inrange(int value, int min, int max) {
+		return (value >= min && value <= max) ? 1 : 0;
 	}
 
 	@InternalFunction(name = "chance")
 	public int ischance(Object... parameters) {
-		return Math.random() * 100 < (int) parameters[0] ? 1 : 0;
+		return ischance((int) parameters[0]);
+	}
+
+	public int ischance(int percent) {
+		return random.nextInt(100) < percent ? 1 : 0;
 	}
 
 	@InternalFunction(name = "getrandom")
@@ -228,13 +277,33 @@ public class InternalFunctions {
 			min = (int) parameters[0];
 			max = (int) parameters[1];
 		}
-		return (int) (Math.random() * (max - min + 1)) + min;
+		return random(min, max);
+	}
+
+	public int random() {
+		return random(0, 100);
+	}
+
+	public int random(int max) {
+		return random(0, max);
+	}
+
+	public int random(int min, int max) {
+		if (max < min) {
+			return min;
+		} else if (max == Integer.MAX_VALUE) {
+			// max + 1 would overflow. Other ranges keep using nextInt, so seeded games replay as before.
+			return (int) random.nextLong(min, max + 1L);
+		}
+		return random.nextInt(min, max + 1);
 	}
 
 	@InternalFunction(name = "strcmp")
 	public int strcmp(Object... parameters) {
-		Object obj1 = parameters[0];
-		Object obj2 = parameters[1];
+		return strcmp(parameters[0], parameters[1]);
+	}
+
+	public int strcmp(Object obj1, Object obj2) {
 		if (obj1 == null && obj2 == null) {
 			return 0;
 		} else if (obj1 == null) {
@@ -258,17 +327,18 @@ public class InternalFunctions {
 
 	@InternalFunction(name = "have")
 	public int ishave(Object... parameters) {
-		GamePlace inhand = getPlaces().get("inhand");
-		Object obj = parameters[0];
+		return ishave(parameters[0]);
+	}
+
+	public int ishave(Object obj) {
+		GamePlace inhand = game.getPlaces().get("inhand");
 		if (obj instanceof GameObject gameObject) {
 			if (gameObject.getLocation() == inhand) {
 				return 1;
 			}
 		} else if (obj instanceof String name) {
-			for (GameObject gameObject : getObjects().get(name)) {
-				if (gameObject.getLocation() == inhand && gameObject.getName().equals(name)) {
-					return 1;
-				}
+			if (findByName(inhand, name) != null) {
+				return 1;
 			}
 		}
 		return 0;
@@ -276,17 +346,18 @@ public class InternalFunctions {
 
 	@InternalFunction(name = "ishere")
 	public int ishere(Object... parameters) {
-		GamePlace here = getObjectVar("here");
-		Object obj = parameters[0];
+		return ishere(parameters[0]);
+	}
+
+	public int ishere(Object obj) {
+		GamePlace here = (GamePlace) game.getHere();
 		if (obj instanceof GameObject gameObject) {
 			if (gameObject.getLocation() == here) {
 				return 1;
 			}
 		} else if (obj instanceof String name) {
-			for (GameObject gameObject : getObjects().get(name)) {
-				if (gameObject.getLocation() == here && gameObject.getName().equals(name)) {
-					return 1;
-				}
+			if (findByName(here, name) != null) {
+				return 1;
 			}
 		}
 		return 0;
@@ -294,23 +365,32 @@ public class InternalFunctions {
 
 	@InternalFunction(name = "isnear")
 	public int isnear(Object... parameters) {
-		return ishave(parameters) != 0 || ishere(parameters) != 0 ? 1 : 0;
+		return isnear(parameters[0]);
+	}
+
+	public int isnear(Object obj) {
+		return ishave(obj) != 0 || ishere(obj) != 0 ? 1 : 0;
 	}
 
 	@InternalFunction(name = "isat")
 	public int isat(Object... parameters) {
-		GamePlace here = getObjectVar("here");
 		for (Object node : parameters) {
-			if (node instanceof GamePlace gamePlace) {
-				if (gamePlace == here) {
-					return 1;
-				}
-			} else if (node instanceof String name) {
-				for (GameObject gameObject : getObjects().get(name)) {
-					if (gameObject.getLocation() == here && gameObject.getName().equals(name)) {
-						return 1;
-					}
-				}
+			if (isat(node) != 0) {
+				return 1;
+			}
+		}
+		return 0;
+	}
+
+	public int isat(Object node) {
+		GamePlace here = (GamePlace) game.getHere();
+		if (node instanceof GamePlace gamePlace) {
+			if (gamePlace == here) {
+				return 1;
+			}
+		} else if (node instanceof String name) {
+			if (findByName(here, name) != null) {
+				return 1;
 			}
 		}
 		return 0;
@@ -318,7 +398,7 @@ public class InternalFunctions {
 
 	@InternalFunction(name = "atplace")
 	public int atplace(Object... parameters) {
-		GamePlace loc = getObjectVar("here");
+		GamePlace loc = (GamePlace) game.getHere();
 		for (int i = 1; i < parameters.length; i++) {
 			GamePlace place = (GamePlace) parameters[i];
 			if (place == loc) {
@@ -339,23 +419,74 @@ public class InternalFunctions {
 		return 0;
 	}
 
+	public int varis(int value, int test) {
+		return value == test ? 1 : 0;
+	}
+
 	@InternalFunction(name = "key")
 	public int iskey(Object... parameters) {
-		if (words == null) {
+		if (wordCount < 0) {
 			return parameters.length == 0 ? 1 : 0;
 		}
-		Set<String> wordSet = new HashSet<>(Arrays.asList(words));
 		for (Object parameter : parameters) {
-			if (!wordSet.contains(parameter.toString())) {
+			if (!hasWord(parameter.toString())) {
 				return 0;
 			}
 		}
 		return 1;
 	}
 
+	public int iskey(Object word) {
+		if (wordCount < 0) {
+			return 0;
+		}
+		return hasWord(word.toString()) ? 1 : 0;
+	}
+
+	private boolean hasWord(String word) {
+		int id = wordId(word);
+		if (id > 0) {
+			return wordIdSet.get(id);
+		}
+		// Not in the vocabulary, so compare with the typed words directly.
+		for (int i = 0; i < wordCount; i++) {
+			if (words[i].equals(word)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void tokenize(String input) {
+		wordCount = 0;
+		wordIdSet.clear();
+		int length = input.length();
+		int index = 0;
+		while (index < length) {
+			while (index < length && Character.isWhitespace(input.charAt(index))) {
+				index++;
+			}
+			int start = index;
+			while (index < length && !Character.isWhitespace(input.charAt(index))) {
+				index++;
+			}
+			if (index > start) {
+				if (wordCount == words.length) {
+					words = Arrays.copyOf(words, wordCount * 2);
+				}
+				String word = input.substring(start, index);
+				words[wordCount++] = word;
+				int id = wordId(word);
+				if (id > 0) {
+					wordIdSet.set(id);
+				}
+			}
+		}
+	}
+
 	@InternalFunction(name = "anyof")
 	public int anyof(Object... parameters) {
-		String verb = getObjectVar("arg1");
+		String verb = game.getArg1();
 		for (Object parameter : parameters) {
 			if (strcmp(verb, parameter) == 0) {
 				return 1;
@@ -364,6 +495,10 @@ public class InternalFunctions {
 		return 0;
 	}
 
+	public int anyof(Object parameter) {
+		return strcmp(game.getArg1(), parameter) == 0 ? 1 : 0;
+	}
+
 	@InternalFunction(name = "query")
 	public int getquery(Object... parameters) {
 		// FIXME Implement this
@@ -393,17 +528,25 @@ public class InternalFunctions {
 
 	@InternalFunction(name = "apport")
 	public int apport(Object... parameters) {
+		return apport(parameters[0], parameters[1], parameters.length < 3 ? 0 : (int) parameters[2]);
+	}
+
+	public int apport(Object obj, Object place) {
+		return apport(obj, place, 0);
+	}
+
+	public int apport(Object obj, Object place, int create) {
 		GameObject object;
-		if (parameters.length < 3 || (int) parameters[2] == 0) {
-			object = (GameObject) parameters[0];
+		if (create == 0) {
+			object = (GameObject) obj;
 		} else {
-			String name = (String) parameters[0];
+			String name = (String) obj;
 			try {
 				String className = GameContext.GAME_CLASS_NAME.replaceAll("/", ".") + "$" + name;
-				Class<?> myClass = Class.forName(className);
+				Class<?> myClass = Class.forName(className, true, game.getClass().getClassLoader());
 				Constructor<?> constructor = myClass.getDeclaredConstructor(game.getClass());
 				object = (GameObject) constructor.newInstance(game);
-				Map<String, List<GameObject>> objects = getObjects();
+				Map<String, List<GameObject>> objects = game.getObjects();
 				if (!objects.containsKey(name)) {
 					objects.put(name, new ArrayList<>());
 				}
@@ -413,24 +556,23 @@ public class InternalFunctions {
 				throw new RuntimeException(e);
 			}
 		}
-		GamePlace place = (GamePlace) parameters[1];
-		object.setLocation(place);
+		object.setLocation((GamePlace) place);
 		return 0;
 	}
 
 	@InternalFunction(name = "get")
 	public int iget(Object... parameters) {
-		Object object = parameters[0];
+		return iget(parameters[0]);
+	}
+
+	public int iget(Object object) {
 		if (object != null) {
 			if (object instanceof GameObject gameObject) {
-				gameObject.setLocation(getPlaces().get("inhand"));
+				gameObject.setLocation(game.getPlaces().get("inhand"));
 			} else if (object instanceof String name) {
-				GamePlace here = getObjectVar("here");
-				for (GameObject gameObject : getObjects().get(name)) {
-					if (gameObject.getLocation() == here) {
-						gameObject.setLocation(getPlaces().get("inhand"));
-						break;
-					}
+				GameObject gameObject = findByName((GamePlace) game.getHere(), name);
+				if (gameObject != null) {
+					gameObject.setLocation(game.getPlaces().get("inhand"));
 				}
 			}
 		}
@@ -439,20 +581,21 @@ public class InternalFunctions {
 
 	@InternalFunction(name = "drop")
 	public int idrop(Object... parameters) {
-		Object object = parameters[0];
+		return idrop(parameters[0]);
+	}
+
+	public int idrop(Object object) {
 		if (object != null) {
-			GamePlace inhand = getPlaces().get("inhand");
-			GamePlace here = getObjectVar("here");
+			GamePlace inhand = game.getPlaces().get("inhand");
+			GamePlace here = (GamePlace) game.getHere();
 			if (object instanceof GameObject gameObject) {
 				if (gameObject.getLocation() == inhand) {
 					gameObject.setLocation(here);
 				}
 			} else if (object instanceof String name) {
-				for (GameObject gameObject : getObjects().get(name)) {
-					if (gameObject.getLocation() == inhand) {
-						gameObject.setLocation(here);
-						break;
-					}
+				GameObject gameObject = findByName(inhand, name);
+				if (gameObject != null) {
+					gameObject.setLocation(here);
 				}
 			}
 		}
@@ -461,26 +604,32 @@ public class InternalFunctions {
 
 	@InternalFunction(name = "goto")
 	public int goto_(Object... parameters) {
-		GamePlace place = (GamePlace) parameters[0];
-		putObjectVar("there", getObjectVar("here"));
-		putObjectVar("here", place);
-		setFlag("status", getIntVar("moved"));
+		return goto_(parameters[0]);
+	}
+
+	public int goto_(Object place) {
+		game.setThere(game.getHere());
+		game.setHere(place);
+		setFlag(statusFlagIndex, game.getMoved());
 		return 0;
 	}
 
 	@InternalFunction(name = "move")
 	public int move_(Object... parameters) {
-		GamePlace place = (GamePlace) parameters[0];
-
 		if (parameters.length > 1) {
 			say_(Arrays.copyOfRange(parameters, 1, parameters.length));
 		}
 
-		putObjectVar("there", getObjectVar("here"));
-		putObjectVar("here", place);
-		setFlag("status", getIntVar("moved"));
+		return move_(parameters[0]);
+	}
 
-		throw new BreakException(ControlType.REPEAT);
+	public int move_(Object place) {
+		game.setThere(game.getHere());
+		game.setHere(place);
+		setFlag(statusFlagIndex, game.getMoved());
+
+		signal(ControlSignal.BREAK_REPEAT);
+		return 0;
 	}
 
 	@InternalFunction(name = "smove")
@@ -491,33 +640,36 @@ public class InternalFunctions {
 
 	@InternalFunction(name = "say")
 	public int say_(Object... parameters) {
+		if (parameters.length == 0) return 0;
+		return say_(parameters[0], parameters.length > 1 ? parameters[1] : null, parameters.length > 2 ? (int) parameters[2] : 1);
+	}
+
+	public int say_(Object textObj) {
+		return say_(textObj, null, 1);
+	}
+
+	public int say_(Object textObj, Object qualifier) {
+		return say_(textObj, qualifier, 1);
+	}
+
+	public int say_(Object textObj, Object qualifier, int newline) {
 		try {
-			if (parameters.length == 0) return 0;
 			String text = "";
-			if (parameters[0] instanceof Text textElement) {
+			if (textObj instanceof Text textElement) {
 				text = textElement.getText();
-			} else if (parameters[0] instanceof String stringElement) {
+			} else if (textObj instanceof String stringElement) {
 				text = stringElement;
-			} else if (parameters[0] instanceof GamePlace place) {
+			} else if (textObj instanceof GamePlace place) {
 				text = place.getBriefDescription();
-			} else if (parameters[0] instanceof GameObject object) {
+			} else if (textObj instanceof GameObject object) {
 				text = object.getBriefDescription();
 			}
 
-			Object qualifier = null;
-			if (parameters.length > 1) {
-				qualifier = parameters[1];
-			}
-			int newline = 1;
-			if (parameters.length > 2) {
-				newline = (int) parameters[2];
-			}
-
 			String outputText = expandText(text, qualifier);
 			if (newline != 0) {
-				System.out.println(outputText);
+				output.println(outputText);
 			} else {
-				System.out.print(outputText);
+				output.print(outputText);
 			}
 		} catch (Exception e) {
 			throw new GameRuntimeException("exception in 'say'", e);
@@ -531,14 +683,14 @@ public class InternalFunctions {
 		try {
 			if (parameters.length == 0) return 0;
 
-			int dice = (int) (Math.random() * 100) + 1;
+			int dice = random.nextInt(100) + 1;
 			int prob = 0;
 			for (int i = 0; i < parameters.length - 1; i += 2) {
 				prob += (int) parameters[i];
 				if (dice < prob) {
 					String text = (String) parameters[i + 1];
 					if (text != null) {
-						System.out.println(text);
+						output.println(text);
 						break;
 					}
 				}
@@ -547,7 +699,8 @@ public class InternalFunctions {
 			throw new GameRuntimeException(/*parameters[0].getSourceLocation() + */": exception in 'sayrandom'", e);
 		}
 
-		throw new BreakException(ControlType.REPEAT);
+		signal(ControlSignal.BREAK_REPEAT);
+		return 0;
 	}
 
 	@InternalFunction(name = "append")
@@ -561,7 +714,14 @@ public class InternalFunctions {
 	@InternalFunction(name = "quip")
 	public int quip(Object... parameters) {
 		say_(parameters);
-		throw new BreakException(ControlType.REPEAT);
+		signal(ControlSignal.BREAK_REPEAT);
+		return 0;
+	}
+
+	public int quip(Object text) {
+		say_(text);
+		signal(ControlSignal.BREAK_REPEAT);
+		return 0;
 	}
 
 	@InternalFunction(name = "respond")
@@ -575,137 +735,71 @@ public class InternalFunctions {
 	@InternalFunction(name = "describe")
 	public int describe_(Object... parameters) {
 		if (parameters.length == 0) return 0;
-		Object var = parameters[0];
+		return describe_(parameters[0]);
+	}
+
+	public int describe_(Object var) {
 		if (var instanceof String stringElement) {
-			GamePlace place = getPlaces().get(stringElement);
+			GamePlace place = game.getPlaces().get(stringElement);
 			if (place != null) {
 				var = place;
 			} else {
-				GamePlace here = getObjectVar("here");
-				GamePlace inHand = getPlaces().get("inhand");
-				List<GameObject> gameObjects = getObjects().get(var);
-				if (gameObjects != null) {
-					for (GameObject gameObject : gameObjects) {
-						if (gameObject.getLocation() == inHand || gameObject.getLocation() == here) {
-							var = gameObject;
-							break;
-						}
-					}
+				GameObject gameObject = findByName(game.getPlaces().get("inhand"), stringElement);
+				if (gameObject == null) {
+					gameObject = findByName((GamePlace) game.getHere(), stringElement);
+				}
+				if (gameObject != null) {
+					var = gameObject;
 				}
 			}
 		}
 		if (var instanceof GamePlace place) {
-			System.out.println(place.getLongDescription());
+			output.println(place.getLongDescription());
 		} else if (var instanceof GameObject object) {
-			System.out.println(object.getLongDescription());
+			output.println(object.getLongDescription());
 		} else {
-			System.out.println("I don't have a description for " + var);
+			output.println("I don't have a description for " + var);
 		}
 		return 0;
 	}
 
 	@InternalFunction(name = "vocab")
 	public int vocab(Object... text) {
-		GamePlace here = getObjectVar("here");
+		return vocab();
+	}
+
+	public int vocab() {
+		GamePlace here = (GamePlace) game.getHere();
 		for (String verb : here.getActions()) {
-			System.out.println(verb + " [here]");
+			output.println(verb + " [here]");
 		}
-		for (String verb : gameContext.gameNode.getActions().keySet()) {
-			System.out.println(verb + " [action]");
+		for (String verb : metadata.actions()) {
+			output.println(verb + " [action]");
 		}
-		GamePlace inhand = getPlaces().get("inhand");
-		for (List<GameObject> objects : getObjects().values()) {
-			for (GameObject object : objects) {
-				if (object.getLocation() == inhand) {
-					for (String verb : object.getActions()) {
-						System.out.println(verb + " [" + object.getName() + "]");
-					}
-				}
+		for (GameObject object : game.getPlaces().get("inhand").getContents()) {
+			for (String verb : object.getActions()) {
+				output.println(verb + " [" + object.getName() + "]");
 			}
 		}
-		throw new BreakException(ControlType.REPEAT);
+		signal(ControlSignal.BREAK_REPEAT);
+		return 0;
 	}
 
 	@InternalFunction(name = "stop")
 	public int stop(Object... parameters) {
-		System.exit(0);
-		return 0;
+		return stop();
 	}
 
-	public String expandText(String text, Object qualifier) {
-		StringBuilder result = new StringBuilder();
-		char[] charArray = text.toCharArray();
-		for (int i = 0; i < charArray.length; i++) {
-			char c = charArray[i];
-			if (c == '\\') {
-				result.append(charArray[++i]);
-			} else if (c == '$') {
-				result.append((int) qualifier);
-			} else if (c == '#') {
-				if (qualifier != null) {
-					result.append(qualifier);
-				} else {
-					result.append('#');
-				}
-			} else if (c == '{') {
-				StringBuilder ident = new StringBuilder();
-				while (++i < charArray.length) {
-					c = charArray[i];
-					if (c == '\\') {
-						ident.append(charArray[++i]);
-					} else if (c == '}') {
-						break;
-					} else {
-						ident.append(c);
-					}
-				}
-				String identName = ident.toString().toLowerCase();
-				Object identObj = getObjectVar(identName);
-				result.append(expandText(identObj instanceof Text ? ((Text) identObj).getText() : (String) identObj, qualifier));
-//				result.append(expandText(getTextIdentifierValue(identName, 0), qualifier));
-			} else if (c == '[') {
-				List<String> switches = new ArrayList<>();
-				i = parseSwitches(charArray, i, switches);
-				if (qualifier == null) {
-					result.append(expandText(switches.get(0), null));
-				} else if ((int) qualifier >= switches.size()) {
-					result.append(expandText(switches.get(switches.size() - 1), qualifier));
-				} else {
-					result.append(expandText(switches.get((int) qualifier), qualifier));
-				}
-			} else {
-				result.append(c);
-			}
-		}
-		return result.toString();
+	public int stop() {
+		stopped = true;
+		signal(ControlSignal.STOP);
+		return 0;
 	}
 
-	private static int parseSwitches(char[] charArray, int i, List<String> switches) {
-		StringBuilder switchText = new StringBuilder(100);
-		char c;
-		while (++i < charArray.length) {
-			c = charArray[i];
-			if (c == '\\') {
-				switchText.append(charArray[++i]);
-			} else if (c == '/') {
-				if ("=".contentEquals(switchText)) {
-					switches.add(switches.get(switches.size() - 1));
-				} else {
-					switches.add(switchText.toString());
-				}
-				switchText = new StringBuilder(100);
-			} else if (c == ']') {
-				if ("=".contentEquals(switchText)) {
-					switches.add(switches.get(switches.size() - 1));
-				} else {
-					switches.add(switchText.toString());
-				}
-				return i;
-			} else {
-				switchText.append(c);
-			}
-		}
-		throw new GameRuntimeException("Missing ']' in switch text in \"" + new String(charArray) + "\"");
+	public String expandText(String text, Object qualifier) {
+		textBuilder.setLength(0);
+		game.getTextTemplate(text).render(textBuilder, qualifier, game);
+		return textBuilder.toString();
 	}
 
 	private void parseInput(String input) {
@@ -713,33 +807,23 @@ public class InternalFunctions {
 		String arg2 = null;
 		int status = 0;
 
-		words = input.split("\\s+");
+		tokenize(input);
+		VocabularyIndex vocabulary = metadata.vocabulary();
 		int index = 1;
-		for (String word : words) {
-			if (!getNoise().contains(word)) {
-				String arg;
-				arg = word;
-				if (gameContext.gameNode.getVerbs().containsKey(word)) {
-					VocabularyNode wordNode = (VocabularyNode) gameContext.gameNode.getVerbs().get(word);
-					arg = wordNode.getName();
+		for (int i = 0; i < wordCount; i++) {
+			String word = words[i];
+			if (!metadata.noise().contains(word)) {
+				String arg = word;
+				int match = vocabulary.find(word);
+				if (match == VocabularyIndex.UNKNOWN) {
+					status = game.getBadword() | game.getBadsyntax();
+				} else if (match == VocabularyIndex.AMBIGUOUS) {
+					status = game.getAmbigword() | game.getBadsyntax();
+				} else {
+					arg = vocabulary.getName(match);
 					if (status >= 0) {
 						status = index;
 					}
-				} else {
-					List<String> possibleKeys = gameContext.gameNode.getVerbs().keySet().stream()
-							.filter(v -> v.startsWith(word))
-							.toList();
-					if (possibleKeys.isEmpty()) {
-						status = getIntVar("badword") | getIntVar("badsyntax");
-					} else if (possibleKeys.size() > 1) {
-						status = getIntVar("ambigword") | getIntVar("badsyntax");
-					} else {
-						VocabularyNode wordNode = (VocabularyNode) gameContext.gameNode.getVerbs().get(possibleKeys.get(0));
-						arg = wordNode.getName();
-						if (status >= 0) {
-							status = index;
-						}
-					}
 				}
 				if (index == 1) {
 					arg1 = arg;
@@ -753,33 +837,61 @@ public class InternalFunctions {
 			}
 		}
 
-		setObjectVar("arg1", arg1);
-		setObjectVar("arg2", arg2);
-		setIntVar("status", status);
+		this.arg1 = null;
+		this.arg2 = null;
+		this.arg1Id = wordId(arg1);
+		this.arg2Id = wordId(arg2);
+		this.arg1 = arg1;
+		this.arg2 = arg2;
+
+		game.setArg1(arg1);
+		game.setArg2(arg2);
+		game.setStatus(status);
 	}
 
-	private boolean testFlag(String flag, long state) {
-		return (getVariableFlags().get(flag) | state) != 0;
+	private boolean testFlag(int flagIndex, long state) {
+		return (game.getVariableFlags()[flagIndex] | state) != 0;
 	}
 
-	public void setFlag(String flag, int state) {
-		getVariableFlags().put(flag, getVariableFlags().get(flag) | state);
+	public void setFlag(int flagIndex, int state) {
+		game.getVariableFlags()[flagIndex] |= state;
 	}
 
 	public void setFlag(GameFlag flagObj, int state) {
 		flagObj.setFlags(flagObj.getFlags() | state);
 	}
 
-	public void clearFlag(String flag, int state) {
-		getVariableFlags().put(flag, getVariableFlags().get(flag) & ~state);
+	public void clearFlag(int flagIndex, int state) {
+		game.getVariableFlags()[flagIndex] &= ~state;
+	}
+
+	private static GameObject findByName(GamePlace place, String name) {
+		for (GameObject gameObject : place.getContents()) {
+			if (gameObject.getName().equals(name)) {
+				return gameObject;
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Called by the generated setLocation to keep each place's contents in step with its objects' locations.
+	 */
+	public static void relocate(GameObject object, GamePlace from, GamePlace to) {
+		if (from == to) {
+			return;
+		}
+		if (from != null) {
+			from.getContents().remove(object);
+		}
+		if (to != null) {
+			to.getContents().add(object);
+		}
 	}
 
-	public static Iterator<Object> iterator(Map<String, List<GameObject>> objects, GamePlace location) {
-		return objects.values().stream()
-				.flatMap(Collection::stream)
-				.filter(o -> o.getLocation() == location)
-				.map(go -> (Object) go)
-				.iterator();
+	public static Iterator<Object> iterator(GamePlace location) {
+		// Copy, since the loop body may move objects in or out of the place.
+		return new ArrayList<Object>(location.getContents()).iterator();
 	}
 
 	public static Iterator<String> iterator(GameObject object) {
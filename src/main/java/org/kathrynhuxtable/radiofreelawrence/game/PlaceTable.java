@@ -0,0 +1,49 @@
+package org.kathrynhuxtable.radiofreelawrence.game;
+
+import java.util.Map;
+
+/*
+ * The places of a game session, each created the first time it is referenced, so a session only
+ * loads the classes of the places it reaches. Place constructors only set up their own fields,
+ * so the order they run in is not observable.
+ */
+public class PlaceTable {
+
+	/*
+	 * Implemented by the generated Game class: construct the place with the given index.
+	 */
+	public interface Factory {
+		GamePlace createPlace(int index);
+	}
+
+	private final Map<String, Integer> indexes;
+	private final Factory factory;
+	private final GamePlace[] places;
+
+	public PlaceTable(Map<String, Integer> indexes, Factory factory) {
+		this.indexes = indexes;
+		this.factory = factory;
+		this.places = new GamePlace[indexes.size()];
+	}
+
+	public GamePlace get(int index) {
+		GamePlace place = places[index];
+		if (place == null) {
+			place = factory.createPlace(index);
+			places[index] = place;
+		}
+		return place;
+	}
+
+	/*
+	 * Find a place by name, or null if there is no such place.
+	 */
+	public GamePlace get(String name) {
+		Integer index = indexes.get(name);
+		return index == null ? null : get(index);
+	}
+
+	public int size() {
+		return places.length;
+	}
+}
@@ -1,11 +1,10 @@
 package org.kathrynhuxtable.radiofreelawrence.game;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Path;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.objectweb.asm.ClassWriter;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -13,10 +12,7 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 
-import org.kathrynhuxtable.radiofreelawrence.game.grammar.GameVisitor;
-import org.kathrynhuxtable.radiofreelawrence.game.grammar.VariableType;
-import org.kathrynhuxtable.radiofreelawrence.game.grammar.tree.ObjectNode;
-import org.kathrynhuxtable.radiofreelawrence.game.grammar.tree.PlaceNode;
+import org.kathrynhuxtable.radiofreelawrence.game.io.ReaderInput;
 
 @RequiredArgsConstructor
 @SpringBootApplication
@@ -25,8 +21,14 @@ import org.kathrynhuxtable.radiofreelawrence.game.grammar.tree.PlaceNode;
 public class RadioactiveFreeLawrenceApplication {
 
 	private static final String MAIN_GDESC_FILE = "main.gdesc";
+	private static final String SEED_PROPERTY = "game.seed";
+	private static final String SCRIPT_PROPERTY = "game.script";
+	private static final String DUMP_PROPERTY = "game.dump";
+	private static final String CACHE_PROPERTY = "game.cache";
+	private static final String BUILD_PROPERTY = "game.build";
+	private static final String JAR_PROPERTY = "game.jar";
 
-	private final GameContext gameContext = new GameContext();
+	private final GameSession session = new GameSession();
 
 	public static void main(String[] args) {
 		SpringApplication.run(RadioactiveFreeLawrenceApplication.class, args);
@@ -36,56 +38,76 @@ public class RadioactiveFreeLawrenceApplication {
 	public CommandLineRunner commandLineRunner(ApplicationContext ctx) {
 		return args -> {
 
-			gameContext.gameNode.createDefaultElements();
-
-			GameVisitor visitor = new GameVisitor(gameContext.gameNode, gameContext.errorReporter);
-			visitor.readFile(MAIN_GDESC_FILE, false);
-
-			gameContext.internalFunctions.validateGrammar();
-
-			// Since places exist once, create variables for them.
-			for (PlaceNode placeNode : gameContext.gameNode.getPlaces()) {
-				gameContext.variableStore.addVariable(placeNode.getName(), VariableType.PLACE);
+			// Passing --game.build=<jar> compiles the game into a jar and exits.
+			String build = ctx.getEnvironment().getProperty(BUILD_PROPERTY);
+			if (build != null) {
+				long start = System.nanoTime();
+				GameJar.write(Path.of(build), new GameCompiler(session).compile(MAIN_GDESC_FILE));
+				log.info("Built {} in {} ms", build, (System.nanoTime() - start) / 1_000_000);
+				System.exit(0);
 			}
 
-			// Generate main Game class
-			ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
-			gameContext.gameNode.generate(cw, gameContext);
-			generateClassFile(cw, null);
+			// Passing --game.jar=<jar> starts from a jar built with --game.build, without parsing or generating code.
+			String jar = ctx.getEnvironment().getProperty(JAR_PROPERTY);
+			if (jar != null) {
+				long start = System.nanoTime();
+				CompiledGame compiledGame = GameJar.read(Path.of(jar));
+				compiledGame.load(session);
+				log.info("Loaded {} classes from {} in {} ms", compiledGame.classes().size(), jar, (System.nanoTime() - start) / 1_000_000);
+			} else {
+				loadOrCompile(ctx.getEnvironment().getProperty(CACHE_PROPERTY));
+			}
 
-			// Generate object inner classes
-			for (ObjectNode objectNode : gameContext.gameNode.getObjects()) {
-				ClassWriter innerCw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
-				objectNode.generate(innerCw, gameContext);
-				generateClassFile(innerCw, objectNode.getName());
+			// Passing --game.dump=<dir> writes the generated class files there for inspection, e.g.
+			// target/game-classes. Keep it off the classpath; the game always runs from memory anyway.
+			String dump = ctx.getEnvironment().getProperty(DUMP_PROPERTY);
+			if (dump != null) {
+				session.classLoader.dump(Path.of(dump));
 			}
 
-			// Generate place inner classes
-			for (PlaceNode placeNode : gameContext.gameNode.getPlaces()) {
-				ClassWriter innerCw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
-				placeNode.generate(innerCw, gameContext);
-				generateClassFile(innerCw, placeNode.getName());
+			// Passing --game.seed=<n> replays the same random choices.
+			Long seed = ctx.getEnvironment().getProperty(SEED_PROPERTY, Long.class);
+			if (seed != null) {
+				log.info("Using random seed {}", seed);
+				session.internalFunctions.setSeed(seed);
 			}
 
-			new GameRunner().run(gameContext);
+			// Passing --game.script=<file> reads the commands from a file instead of the console.
+			String script = ctx.getEnvironment().getProperty(SCRIPT_PROPERTY);
+			if (script != null) {
+				try (ReaderInput input = ReaderInput.file(Path.of(script))) {
+					session.internalFunctions.setInput(input);
+					new GameRunner().run(session);
+				}
+			} else {
+				new GameRunner().run(session);
+			}
 
 			System.exit(0);
 		};
 	}
 
-	private void generateClassFile(ClassWriter classWriter, String innerClassName) throws IOException {
-		StringBuilder filename = new StringBuilder("target/classes/");
-		filename.append(GameContext.GAME_CLASS_NAME);
-		if (innerClassName != null) {
-			filename.append("$");
-			filename.append(innerClassName);
-		}
-		filename.append(".class");
+	private void loadOrCompile(String cacheDirectory) throws IOException {
+		// Passing --game.cache=<dir> reuses the compiled game while its sources are unchanged.
+		GameCache cache = cacheDirectory == null ? null : new GameCache(Path.of(cacheDirectory));
 
-		byte[] bytes = classWriter.toByteArray();
+		long start = System.nanoTime();
+		CompiledGame compiledGame = cache == null ? null : cache.load(MAIN_GDESC_FILE);
+		if (compiledGame != null) {
+			compiledGame.load(session);
+			log.info("Game cache hit: loaded {} classes in {} ms", compiledGame.classes().size(), (System.nanoTime() - start) / 1_000_000);
+			return;
+		}
 
-		FileOutputStream innerOut = new FileOutputStream(filename.toString());
-		innerOut.write(bytes);
-		innerOut.close();
+		GameCompiler compiler = new GameCompiler(session);
+		compiledGame = compiler.compile(MAIN_GDESC_FILE);
+		long compiled = System.nanoTime();
+		if (cache != null) {
+			cache.store(MAIN_GDESC_FILE, compiler.getSourceFiles(), compiledGame);
+			log.info("Game cache miss: compiled in {} ms, stored in {} ms",
+					(compiled - start) / 1_000_000, (System.nanoTime() - compiled) / 1_000_000);
+		} else {
+			log.info("Compiled game in {} ms", (compiled - start) / 1_000_000);
+		}
 	}
 }
@@ -0,0 +1,12 @@
+package org.kathrynhuxtable.radiofreelawrence.game;
+
+/*
+ * What one step of a session produced: the text written since the last step, and whether the
+ * game is waiting for another command.
+ */
+public record StepResult(String output, Status status) {
+
+	public enum Status {
+		AWAITING_INPUT, STOPPED
+	}
+}
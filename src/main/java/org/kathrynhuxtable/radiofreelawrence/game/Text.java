@@ -1,21 +1,25 @@
 package org.kathrynhuxtable.radiofreelawrence.game;
 
+import java.util.random.RandomGenerator;
+
 public class Text {
 
 	public TextMethod method;
 	public String[] texts;
+	private final RandomGenerator random;
 	private int count = 0;
 
-	public Text(TextMethod method, String[] texts) {
+	public Text(TextMethod method, String[] texts, RandomGenerator random) {
 		this.method = method;
 		this.texts = texts;
+		this.random = random;
 	}
 
 	public String getText() {
 		return switch (method) {
 			case INCREMENT -> texts[Math.min(count++, texts.length - 1)];
 			case CYCLE -> texts[count++ % texts.length];
-			case RANDOM -> texts[(int) (Math.random() * texts.length)];
+			case RANDOM -> texts[random.nextInt(texts.length)];
 			case ASSIGNED -> texts[0];
 		};
 	}
@@ -0,0 +1,187 @@
+package org.kathrynhuxtable.radiofreelawrence.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.kathrynhuxtable.radiofreelawrence.game.exception.GameRuntimeException;
+
+/*
+ * A game text parsed once into segments, so that rendering only appends. The compiler parses every
+ * text the game can say as written and generates code to build its template when the Game class is
+ * initialized; only computed texts are parsed while the game runs.
+ *
+ *   \c       the character c
+ *   $        the qualifier as a number
+ *   #        the qualifier, or '#' if there is none
+ *   {ident}  the text of a game variable, itself expanded
+ *   [a/b/=]  the option selected by the qualifier; '=' repeats the previous option
+ */
+public class TextTemplate {
+
+	/*
+	 * Implemented by the generated Game class.
+	 */
+	public interface Context {
+		/*
+		 * The value of a text or variable named in {ident}, read straight from its field, or null if
+		 * there is none.
+		 */
+		Object getTextVariable(String name);
+
+		/*
+		 * The template built for a text literal, or one parsed now for a computed text.
+		 */
+		TextTemplate getTextTemplate(String text);
+	}
+
+	public interface Segment {
+		void render(StringBuilder out, Object qualifier, Context context);
+	}
+
+	public record Literal(String text) implements Segment {
+		@Override
+		public void render(StringBuilder out, Object qualifier, Context context) {
+			out.append(text);
+		}
+	}
+
+	public record NumberQualifier() implements Segment {
+		@Override
+		public void render(StringBuilder out, Object qualifier, Context context) {
+			out.append((int) qualifier);
+		}
+	}
+
+	public record Qualifier() implements Segment {
+		@Override
+		public void render(StringBuilder out, Object qualifier, Context context) {
+			if (qualifier != null) {
+				out.append(qualifier);
+			} else {
+				out.append('#');
+			}
+		}
+	}
+
+	public record Identifier(String name) implements Segment {
+		@Override
+		public void render(StringBuilder out, Object qualifier, Context context) {
+			Object value = context.getTextVariable(name);
+			if (value == null) {
+				throw new GameRuntimeException("No text for {" + name + "}");
+			}
+			String text = value instanceof Text textValue ? textValue.getText() : (String) value;
+			context.getTextTemplate(text).render(out, qualifier, context);
+		}
+	}
+
+	public record Switch(TextTemplate[] options) implements Segment {
+		@Override
+		public void render(StringBuilder out, Object qualifier, Context context) {
+			if (qualifier == null) {
+				options[0].render(out, null, context);
+			} else if ((int) qualifier >= options.length) {
+				options[options.length - 1].render(out, qualifier, context);
+			} else {
+				options[(int) qualifier].render(out, qualifier, context);
+			}
+		}
+	}
+
+	private final Segment[] segments;
+
+	public TextTemplate(Segment[] segments) {
+		this.segments = segments;
+	}
+
+	public List<Segment> getSegments() {
+		return List.of(segments);
+	}
+
+	public void render(StringBuilder out, Object qualifier, Context context) {
+		for (Segment segment : segments) {
+			segment.render(out, qualifier, context);
+		}
+	}
+
+	public static TextTemplate compile(String text) {
+		List<Segment> segments = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		char[] charArray = text.toCharArray();
+		for (int i = 0; i < charArray.length; i++) {
+			char c = charArray[i];
+			if (c == '\\') {
+				if (++i < charArray.length) {
+					literal.append(charArray[i]);
+				}
+				continue;
+			} else if (c != '$' && c != '#' && c != '{' && c != '[') {
+				literal.append(c);
+				continue;
+			}
+
+			if (!literal.isEmpty()) {
+				segments.add(new Literal(literal.toString()));
+				literal.setLength(0);
+			}
+			if (c == '$') {
+				segments.add(new NumberQualifier());
+			} else if (c == '#') {
+				segments.add(new Qualifier());
+			} else if (c == '{') {
+				StringBuilder ident = new StringBuilder();
+				while (++i < charArray.length) {
+					c = charArray[i];
+					if (c == '\\') {
+						ident.append(charArray[++i]);
+					} else if (c == '}') {
+						break;
+					} else {
+						ident.append(c);
+					}
+				}
+				segments.add(new Identifier(ident.toString().toLowerCase()));
+			} else {
+				List<String> switches = new ArrayList<>();
+				i = parseSwitches(charArray, i, switches);
+				TextTemplate[] options = new TextTemplate[switches.size()];
+				for (int option = 0; option < options.length; option++) {
+					options[option] = compile(switches.get(option));
+				}
+				segments.add(new Switch(options));
+			}
+		}
+		if (!literal.isEmpty()) {
+			segments.add(new Literal(literal.toString()));
+		}
+		return new TextTemplate(segments.toArray(new Segment[0]));
+	}
+
+	private static int parseSwitches(char[] charArray, int i, List<String> switches) {
+		StringBuilder switchText = new StringBuilder(100);
+		char c;
+		while (++i < charArray.length) {
+			c = charArray[i];
+			if (c == '\\') {
+				switchText.append(charArray[++i]);
+			} else if (c == '/') {
+				if ("=".contentEquals(switchText)) {
+					switches.add(switches.get(switches.size() - 1));
+				} else {
+					switches.add(switchText.toString());
+				}
+				switchText = new StringBuilder(100);
+			} else if (c == ']') {
+				if ("=".contentEquals(switchText)) {
+					switches.add(switches.get(switches.size() - 1));
+				} else {
+					switches.add(switchText.toString());
+				}
+				return i;
+			} else {
+				switchText.append(c);
+			}
+		}
+		throw new GameRuntimeException("Missing ']' in switch text in \"" + new String(charArray) + "\"");
+	}
+}
@@ -5,13 +5,12 @@ import java.util.*;
 import lombok.Getter;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
-import org.springframework.stereotype.Component;
+import org.objectweb.asm.Type;
 
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.VariableContext;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.VariableScope;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.VariableType;
 
-@Component
 public class VariableStore {
 
 	public static class LoopContext {
@@ -29,12 +28,30 @@ public class VariableStore {
 	@Getter
 	private String currentClass = null;
 	private int methodStackSize = 0;
+	@Getter
+	private Type returnType = Type.VOID_TYPE;
 
-	private final Map<String, VariableContext> globalContext = new HashMap<>();
+	private final Map<String, VariableContext> globalContext;
 	private final Map<String, VariableContext> classContext = new HashMap<>();
 	private final List<Map<String, VariableContext>> functionContext = new ArrayList<>();
 	private final List<LoopContext> loopContexts = new ArrayList<>();
 
+	public VariableStore() {
+		this(new HashMap<>());
+	}
+
+	private VariableStore(Map<String, VariableContext> globalContext) {
+		this.globalContext = globalContext;
+	}
+
+	/*
+	 * A store for generating one class, sharing the global variables. Globals must not be added once
+	 * class generation has started.
+	 */
+	public VariableStore forClass() {
+		return new VariableStore(globalContext);
+	}
+
 	public void newClassScope(String className) {
 		this.currentClass = className;
 		this.classContext.clear(); // Just making sure
@@ -46,7 +63,8 @@ public class VariableStore {
 	}
 
 	// TODO Do we need to do something about variable scope here? What about paremeters?
-	public void newFunctionScope() {
+	public void newFunctionScope(Type returnType) {
+		this.returnType = returnType;
 		functionContext.clear(); // Just making sure
 		// Always start a new block scope with a function.
 		newBlockScope();
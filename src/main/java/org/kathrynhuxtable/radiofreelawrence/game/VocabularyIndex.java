@@ -0,0 +1,72 @@
+package org.kathrynhuxtable.radiofreelawrence.game;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+
+/*
+ * Sorted vocabulary for resolving abbreviations. All words starting with a prefix are adjacent,
+ * so a binary search and a look at the next word tells whether the prefix is unique. Words and
+ * names are interned, so names shared by many words are stored once.
+ */
+public class VocabularyIndex {
+
+	public static final int UNKNOWN = -1;
+	public static final int AMBIGUOUS = -2;
+
+	private final String[] words;
+	private final String[] names;
+
+	public <T> VocabularyIndex(Map<String, T> vocabulary, Function<T, String> nameFunction) {
+		String[] keys = vocabulary.keySet().toArray(new String[0]);
+		Arrays.sort(keys);
+		words = new String[keys.length];
+		names = new String[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			words[i] = keys[i].intern();
+			names[i] = nameFunction.apply(vocabulary.get(keys[i])).intern();
+		}
+	}
+
+	/*
+	 * Rebuild an index from the words in sorted order and their names, as written out by getWord and getName.
+	 */
+	public VocabularyIndex(String[] words, String[] names) {
+		this.words = new String[words.length];
+		this.names = new String[names.length];
+		for (int i = 0; i < words.length; i++) {
+			this.words[i] = words[i].intern();
+			this.names[i] = names[i].intern();
+		}
+	}
+
+	/*
+	 * Find the word matching exactly, or else the only word starting with the prefix.
+	 * Returns its index, UNKNOWN or AMBIGUOUS.
+	 */
+	public int find(String prefix) {
+		int index = Arrays.binarySearch(words, prefix);
+		if (index >= 0) {
+			return index;
+		}
+		index = -index - 1;
+		if (index >= words.length || !words[index].startsWith(prefix)) {
+			return UNKNOWN;
+		} else if (index + 1 < words.length && words[index + 1].startsWith(prefix)) {
+			return AMBIGUOUS;
+		}
+		return index;
+	}
+
+	public int size() {
+		return words.length;
+	}
+
+	public String getWord(int index) {
+		return words[index];
+	}
+
+	public String getName(int index) {
+		return names[index];
+	}
+}
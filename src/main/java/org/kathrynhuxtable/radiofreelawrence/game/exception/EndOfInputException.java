@@ -0,0 +1,7 @@
+package org.kathrynhuxtable.radiofreelawrence.game.exception;
+
+public class EndOfInputException extends GameRuntimeException {
+	public EndOfInputException() {
+		super("end of input");
+	}
+}
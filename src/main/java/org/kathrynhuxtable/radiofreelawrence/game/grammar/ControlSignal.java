@@ -0,0 +1,9 @@
+package org.kathrynhuxtable.radiofreelawrence.game.grammar;
+
+public enum ControlSignal {
+	NONE, BREAK, BREAK_REPEAT, CONTINUE, AWAIT_INPUT, STOP;
+
+	public static ControlSignal breakSignal(ControlType controlType) {
+		return controlType == ControlType.REPEAT ? BREAK_REPEAT : BREAK;
+	}
+}
@@ -1,12 +1,21 @@
 package org.kathrynhuxtable.radiofreelawrence.game.grammar;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
 import org.antlr.v4.runtime.BaseErrorListener;
 import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
 
-// Example of a custom error listener including filename
+// Collects syntax errors with their filename, to be reported when the file is visited
+@Getter
 public class DescriptiveErrorListener extends BaseErrorListener {
-	public static final DescriptiveErrorListener INSTANCE = new DescriptiveErrorListener();
+	public record SyntaxError(SourceLocation sourceLocation, String message) {
+	}
+
+	private final List<SyntaxError> syntaxErrors = new ArrayList<>();
 
 	@Override
 	public void syntaxError(Recognizer<?, ?> recognizer,
@@ -14,8 +23,12 @@ public class DescriptiveErrorListener extends BaseErrorListener {
 	                        int line, int charPositionInLine,
 	                        String msg,
 	                        RecognitionException e) {
-		String sourceName = recognizer.getInputStream().getSourceName();
+		// Parser errors name the file of the offending token; lexer errors have none, but the lexer
+		// is still reading its file.
+		String sourceName = offendingSymbol instanceof Token token && token.getInputStream() != null
+				? token.getInputStream().getSourceName()
+				: recognizer.getInputStream().getSourceName();
 		SourceLocation sourceLocation = new SourceLocation(sourceName, line, charPositionInLine);
-		System.err.println(sourceLocation + ": " + msg);
+		syntaxErrors.add(new SyntaxError(sourceLocation, msg));
 	}
 }
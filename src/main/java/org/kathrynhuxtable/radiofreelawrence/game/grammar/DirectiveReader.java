@@ -0,0 +1,181 @@
+package org.kathrynhuxtable.radiofreelawrence.game.grammar;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import lombok.extern.slf4j.Slf4j;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.IntervalSet;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import org.kathrynhuxtable.gdesc.parser.GameLexer;
+import org.kathrynhuxtable.gdesc.parser.GameParser;
+import org.kathrynhuxtable.gdesc.parser.GameParser.DirectiveContext;
+
+/*
+ * Parses a lexed file one top-level directive at a time, so only the tree of the directive being
+ * visited is ever in memory, and drops the file's tokens once the last directive is read. Syntax
+ * errors are handed out with the directive they belong to.
+ */
+@Slf4j
+public class DirectiveReader implements AutoCloseable {
+
+	private static final Comparator<DescriptiveErrorListener.SyntaxError> SOURCE_ORDER =
+			Comparator.comparingInt((DescriptiveErrorListener.SyntaxError e) -> e.sourceLocation().getLine())
+					.thenComparingInt(e -> e.sourceLocation().getCharPositionInLine());
+
+	/*
+	 * Resynchronizes at the start of a directive, as recovery inside the game rule's directive+
+	 * loop would when the whole file was parsed at once.
+	 */
+	private static class DirectiveErrorStrategy extends DefaultErrorStrategy {
+		@Override
+		protected IntervalSet getErrorRecoverySet(Parser recognizer) {
+			IntervalSet recoverSet = new IntervalSet(super.getErrorRecoverySet(recognizer));
+			ATN atn = recognizer.getATN();
+			recoverSet.addAll(atn.nextTokens(atn.ruleToStartState[GameParser.RULE_directive]));
+			recoverSet.add(Token.EOF);
+			return recoverSet;
+		}
+	}
+
+	private final String filePath;
+	private final List<DescriptiveErrorListener.SyntaxError> lexerErrors;
+	private CommonTokenStream tokens;
+	private final GameParser parser;
+	private final SourceReader sourceReader;
+	private final DescriptiveErrorListener errorListener = new DescriptiveErrorListener();
+	private final List<DescriptiveErrorListener.SyntaxError> syntaxErrors = new ArrayList<>();
+	private int lexerErrorIndex;
+	// Token index past the include most recently prefetched.
+	private int includeScanIndex;
+	private int directives;
+	private int fallbacks;
+	private long parseTime;
+
+	DirectiveReader(SourceReader.LexedFile lexedFile, GameParser parser, SourceReader sourceReader) {
+		this.filePath = lexedFile.filePath();
+		this.lexerErrors = lexedFile.syntaxErrors();
+		this.tokens = lexedFile.tokens();
+		this.parser = parser;
+		this.sourceReader = sourceReader;
+		parser.setTokenStream(tokens);
+		parser.setBuildParseTree(true);
+		prefetchNextInclude();
+	}
+
+	/*
+	 * Parse the next directive, or return null at the end of the file.
+	 */
+	public DirectiveContext next() {
+		if (tokens == null) {
+			return null;
+		}
+		if (tokens.LA(1) == Token.EOF) {
+			addLexerErrors(null);
+			// Nothing refers to the tokens or the characters once the last directive is visited.
+			parser.setTokenStream(null);
+			tokens = null;
+			return null;
+		}
+		long start = System.nanoTime();
+		directives++;
+
+		// SLL is enough for nearly all input, and gives up at the first error without
+		// reporting it. Only then is the directive parsed again with full LL and error recovery.
+		int index = tokens.index();
+		DirectiveContext directive;
+		parser.removeErrorListeners();
+		parser.setErrorHandler(new BailErrorStrategy());
+		parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+		try {
+			directive = parser.directive();
+		} catch (ParseCancellationException e) {
+			fallbacks++;
+			tokens.seek(index);
+			parser.addErrorListener(errorListener);
+			parser.setErrorHandler(new DirectiveErrorStrategy());
+			parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+			directive = parser.directive();
+			if (tokens.index() == index) {
+				tokens.consume();
+			}
+			syntaxErrors.addAll(errorListener.getSyntaxErrors());
+			errorListener.getSyntaxErrors().clear();
+		}
+
+		parseTime += System.nanoTime() - start;
+		addLexerErrors(tokens.LT(1));
+		prefetchNextInclude();
+		return directive;
+	}
+
+	/*
+	 * The syntax errors found since the last call, in source order.
+	 */
+	public List<DescriptiveErrorListener.SyntaxError> takeSyntaxErrors() {
+		List<DescriptiveErrorListener.SyntaxError> result = new ArrayList<>(syntaxErrors);
+		result.sort(SOURCE_ORDER);
+		syntaxErrors.clear();
+		return result;
+	}
+
+	@Override
+	public void close() {
+		log.info("Parsed {} ({} directives, {} with LL) in {} ms",
+				filePath, directives, fallbacks, parseTime / 1_000_000);
+		parser.setTokenStream(null);
+		sourceReader.release(parser);
+	}
+
+	/*
+	 * Once the include prefetched last has been parsed, start lexing the next file this one
+	 * includes, so it is ready when the visitor gets there. Lexing just one include ahead keeps
+	 * memory flat however large the include graph is.
+	 */
+	private void prefetchNextInclude() {
+		if (tokens.index() < includeScanIndex) {
+			return;
+		}
+		List<Token> tokenList = tokens.getTokens();
+		Token previous = null;
+		for (int index = tokens.index(); index < tokenList.size(); index++) {
+			Token token = tokenList.get(index);
+			if (token.getChannel() != Token.DEFAULT_CHANNEL) {
+				continue;
+			}
+			if (previous != null && previous.getType() == GameLexer.INCLUDE && token.getType() == GameLexer.STRING_LITERAL) {
+				sourceReader.prefetch(TextUtils.cleanStringLiteral(token.getText()));
+				includeScanIndex = index + 1;
+				return;
+			}
+			previous = token;
+		}
+		includeScanIndex = tokenList.size();
+	}
+
+	/*
+	 * Move the lexer errors located before the next token, or all of them at the end of the
+	 * file, to the errors of the current directive.
+	 */
+	private void addLexerErrors(Token next) {
+		while (lexerErrorIndex < lexerErrors.size()) {
+			DescriptiveErrorListener.SyntaxError error = lexerErrors.get(lexerErrorIndex);
+			if (next != null && next.getType() != Token.EOF
+					&& (error.sourceLocation().getLine() > next.getLine()
+					|| error.sourceLocation().getLine() == next.getLine()
+					&& error.sourceLocation().getCharPositionInLine() >= next.getCharPositionInLine())) {
+				break;
+			}
+			syntaxErrors.add(error);
+			lexerErrorIndex++;
+		}
+	}
+}
@@ -11,7 +11,10 @@ public class ErrorReporter {
 	private final List<String> errors = new ArrayList<>();
 
 	public void reportError(ParserRuleContext context, String message) {
-		SourceLocation sourceLocation = new SourceLocation(context);
+		reportError(new SourceLocation(context), message);
+	}
+
+	public void reportError(SourceLocation sourceLocation, String message) {
 		errors.add(sourceLocation + " - " + message);
 	}
 }
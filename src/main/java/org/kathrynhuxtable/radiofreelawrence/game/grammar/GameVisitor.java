@@ -1,10 +1,6 @@
 package org.kathrynhuxtable.radiofreelawrence.game.grammar;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.channels.Channels;
-import java.nio.charset.CodingErrorAction;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -14,14 +10,9 @@ import java.util.stream.Collectors;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
-import org.antlr.v4.runtime.CharStream;
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.tree.TerminalNode;
 
-import org.kathrynhuxtable.gdesc.parser.GameLexer;
-import org.kathrynhuxtable.gdesc.parser.GameParser;
 import org.kathrynhuxtable.gdesc.parser.GameParser.*;
 import org.kathrynhuxtable.gdesc.parser.GameParserBaseVisitor;
 import org.kathrynhuxtable.radiofreelawrence.game.TextMethod;
@@ -36,35 +27,31 @@ import org.kathrynhuxtable.radiofreelawrence.game.grammar.tree.UnaryNode.UnaryOp
 public class GameVisitor extends GameParserBaseVisitor<BaseNode> {
 	private final GameNode root;
 	private final ErrorReporter errorReporter;
+	private final SourceReader sourceReader;
 
 	public void readFile(String filePath, boolean optional) throws IOException {
-		try (InputStream inputStream = GameVisitor.class.getResourceAsStream("/" + filePath)) {
-			if (inputStream != null) {
-				CharStream charStream = CharStreams.fromChannel(
-						Channels.newChannel(inputStream),
-						StandardCharsets.UTF_8,
-						4096,
-						CodingErrorAction.REPLACE,
-						filePath,
-						-1);
-
-				GameLexer lexer = new GameLexer(charStream);
-				lexer.removeErrorListeners();
-				lexer.addErrorListener(DescriptiveErrorListener.INSTANCE);
-
-				CommonTokenStream tokens = new CommonTokenStream(lexer);
-
-				GameParser parser = new GameParser(tokens);
-				parser.removeErrorListeners();
-				parser.addErrorListener(DescriptiveErrorListener.INSTANCE);
-				parser.setBuildParseTree(true);
-
-				GameContext gameContext = parser.game();
-
-				visit(gameContext);
-			} else if (!optional) {
-				throw new IOException("Unable to open required include file " + filePath);
+		root.getSourceFiles().add(filePath);
+		// Each directive's parse tree is unreachable once its nodes are added to root.
+		try (DirectiveReader reader = sourceReader.open(filePath)) {
+			if (reader == null) {
+				if (!optional) {
+					throw new IOException("Unable to open required include file " + filePath);
+				}
+				return;
+			}
+			DirectiveContext directive;
+			while ((directive = reader.next()) != null) {
+				reportSyntaxErrors(reader.takeSyntaxErrors());
+				visit(directive);
 			}
+			reportSyntaxErrors(reader.takeSyntaxErrors());
+		}
+	}
+
+	private void reportSyntaxErrors(List<DescriptiveErrorListener.SyntaxError> syntaxErrors) {
+		for (DescriptiveErrorListener.SyntaxError syntaxError : syntaxErrors) {
+			System.err.println(syntaxError.sourceLocation() + ": " + syntaxError.message());
+			errorReporter.reportError(syntaxError.sourceLocation(), syntaxError.message());
 		}
 	}
 
@@ -82,8 +69,8 @@ public class GameVisitor extends GameParserBaseVisitor<BaseNode> {
 		String resource = textLiteralNode.getText();
 		boolean optional = ctx.BOOL_LITERAL() != null && "true".equalsIgnoreCase(ctx.BOOL_LITERAL().getText());
 		try {
-			// Parse the include file, adding its values to our result.
-			GameVisitor nested = new GameVisitor(root, errorReporter);
+			// Merge the include file, lexed in the background, into our result.
+			GameVisitor nested = new GameVisitor(root, errorReporter, sourceReader);
 			nested.readFile(resource, optional);
 		} catch (IOException e) {
 			errorReporter.reportError(ctx,
@@ -820,14 +807,32 @@ public class GameVisitor extends GameParserBaseVisitor<BaseNode> {
 					.sourceLocation(new SourceLocation(ctx))
 					.build();
 		} else {
+			String internalFunction = ctx.internalFunction().getText().toLowerCase();
+			List<ExprNode> parameters = ((ExprListNode) visit(ctx.optionalExpressionList())).getExprNodes();
+			addSaidText(internalFunction, parameters);
 			return FunctionInvocationNode.builder()
-					.internalFunction(ctx.internalFunction().getText().toLowerCase())
-					.parameters(((ExprListNode) visit(ctx.optionalExpressionList())).getExprNodes())
+					.internalFunction(internalFunction)
+					.parameters(parameters)
 					.sourceLocation(new SourceLocation(ctx))
 					.build();
 		}
 	}
 
+	/*
+	 * Remember a literal the function says, so its template is built when the game is compiled.
+	 */
+	private void addSaidText(String internalFunction, List<ExprNode> parameters) {
+		int textIndex = switch (internalFunction) {
+			case "say", "quip" -> 0;
+			case "move" -> 1;
+			case "respond" -> parameters.size() - 1;
+			default -> -1;
+		};
+		if (textIndex >= 0 && textIndex < parameters.size() && parameters.get(textIndex) instanceof TextElementNode text) {
+			root.getSaidTexts().add(text);
+		}
+	}
+
 	// | expression (COMMA expression)*
 	@Override
 	public BaseNode visitOptionalExpressionList(OptionalExpressionListContext ctx) {
@@ -1179,15 +1184,10 @@ public class GameVisitor extends GameParserBaseVisitor<BaseNode> {
 	}
 
 	private TextElementNode getTextElementNode(TerminalNode ctx, String text) {
-		TextElementNode node = TextElementNode.builder()
+		return TextElementNode.builder()
 				.text(text)
-				.index(root.getTextElementIndex(text))
 				.sourceLocation(getSourceLocation(ctx))
 				.build();
-
-		root.getTextElements().add(node);
-
-		return node;
 	}
 
 	private SourceLocation getSourceLocation(TerminalNode node) {
@@ -0,0 +1,155 @@
+package org.kathrynhuxtable.radiofreelawrence.game.grammar;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+
+import org.kathrynhuxtable.gdesc.parser.GameLexer;
+import org.kathrynhuxtable.gdesc.parser.GameParser;
+
+/*
+ * Opens game source files for the visitor. Only reading and lexing happen in the background, on a
+ * small thread pool of its own, shut down by close(), so blocking reads never hold up work on the
+ * common pool such as parallel codegen. Each open file has the next file it includes lexed ahead, so
+ * the visitor seldom waits for a file while only a few files are held in memory at once.
+ *
+ * Parsing and visiting stay on the visitor thread, one directive at a time in include order. The
+ * visitor checks each declaration against everything declared before it, numbers init and repeat
+ * blocks as it meets them, and merges actions as they come, so visiting includes apart would need
+ * all of that redone in a merge step.
+ */
+@Slf4j
+public class SourceReader implements AutoCloseable {
+
+	/*
+	 * The tokens of a source file, or null tokens if the file does not exist.
+	 */
+	record LexedFile(String filePath, CommonTokenStream tokens, List<DescriptiveErrorListener.SyntaxError> syntaxErrors) {
+	}
+
+	// Enough for the one include lexed ahead at each open level to rarely queue.
+	private static final int LEXER_THREADS = 2;
+
+	private final Executor executor;
+	/* The pool created by this parser, or null if the executor was passed in. */
+	private final ExecutorService ownExecutor;
+	private final Map<String, CompletableFuture<LexedFile>> pending = new ConcurrentHashMap<>();
+	/* Parsers are only used on the visitor thread, one per open include level. */
+	private final Deque<GameParser> parsers = new ArrayDeque<>();
+
+	public SourceReader() {
+		AtomicInteger threadCount = new AtomicInteger();
+		ownExecutor = Executors.newFixedThreadPool(LEXER_THREADS, runnable -> {
+			Thread thread = new Thread(runnable, "gdesc-lexer-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor = ownExecutor;
+	}
+
+	public SourceReader(Executor executor) {
+		this.executor = executor;
+		this.ownExecutor = null;
+	}
+
+	/*
+	 * Start lexing a file in the background, unless that has already been done.
+	 */
+	public void prefetch(String filePath) {
+		pending.computeIfAbsent(filePath, path -> CompletableFuture.supplyAsync(() -> lex(path), executor));
+	}
+
+	/*
+	 * Wait for the tokens of a file. Each file is handed out only once, so its tokens can be
+	 * released after it is visited; a file included twice is lexed twice.
+	 */
+	private LexedFile take(String filePath) throws IOException {
+		prefetch(filePath);
+		CompletableFuture<LexedFile> future = pending.remove(filePath);
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof UncheckedIOException ioException) {
+				throw ioException.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/*
+	 * Start parsing the directives of a file, or return null if the file does not exist.
+	 */
+	public DirectiveReader open(String filePath) throws IOException {
+		LexedFile lexedFile = take(filePath);
+		if (lexedFile.tokens() == null) {
+			return null;
+		}
+		GameParser parser = parsers.isEmpty() ? new GameParser(null) : parsers.pop();
+		return new DirectiveReader(lexedFile, parser, this);
+	}
+
+	void release(GameParser parser) {
+		parsers.push(parser);
+	}
+
+	/*
+	 * Stop the lexer threads, abandoning files lexed ahead but never opened.
+	 */
+	@Override
+	public void close() {
+		pending.clear();
+		if (ownExecutor != null) {
+			ownExecutor.shutdownNow();
+		}
+	}
+
+	private LexedFile lex(String filePath) {
+		long start = System.nanoTime();
+		try (InputStream inputStream = SourceReader.class.getResourceAsStream("/" + filePath)) {
+			if (inputStream == null) {
+				return new LexedFile(filePath, null, List.of());
+			}
+			CharStream charStream = CharStreams.fromChannel(
+					Channels.newChannel(inputStream),
+					StandardCharsets.UTF_8,
+					4096,
+					CodingErrorAction.REPLACE,
+					filePath,
+					-1);
+
+			DescriptiveErrorListener errorListener = new DescriptiveErrorListener();
+			// A lexer of its own, since the file is parsed later on the visitor thread and the token
+			// stream's source name is read through it. The lexer's DFA cache is shared anyway.
+			GameLexer lexer = new GameLexer(charStream);
+			lexer.removeErrorListeners();
+			lexer.addErrorListener(errorListener);
+
+			CommonTokenStream tokens = new CommonTokenStream(lexer);
+			tokens.fill();
+
+			log.info("Lexed {} in {} ms", filePath, (System.nanoTime() - start) / 1_000_000);
+			return new LexedFile(filePath, tokens, errorListener.getSyntaxErrors());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
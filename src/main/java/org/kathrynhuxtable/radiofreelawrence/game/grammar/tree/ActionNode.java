@@ -10,8 +10,10 @@ import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
 import org.objectweb.asm.commons.LocalVariablesSorter;
 
+import org.kathrynhuxtable.radiofreelawrence.game.AsmUtils;
 import org.kathrynhuxtable.radiofreelawrence.game.GameContext;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.SourceLocation;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.VariableContext;
@@ -28,15 +30,15 @@ public class ActionNode implements StatementNode {
 
 	public static void generateActions(ClassVisitor cv, GameContext gameContext, Map<String, ActionNode> actions) {
 		if (actions != null && !actions.isEmpty()) {
-			gameContext.gameNode.setSourceFile(cv, actions.values().iterator().next().getSourceLocation());
+			gameContext.setSourceFile(cv, actions.values().iterator().next().getSourceLocation());
 		}
 		gameContext.variableStore.addVariable("doAction", VariableType.METHOD);
-		gameContext.variableStore.newFunctionScope();
-		MethodVisitor mv2 = cv.visitMethod(ACC_PUBLIC, "doAction", "(Ljava/lang/String;Ljava/lang/String;)V", null, null);
+		gameContext.variableStore.newFunctionScope(Type.VOID_TYPE);
+		MethodVisitor mv2 = cv.visitMethod(ACC_PUBLIC, "doAction", "(II)V", null, null);
 		mv2.visitParameter("arg1", 1);
 		mv2.visitParameter("arg2", 2);
 		mv2.visitCode();
-		LocalVariablesSorter mv = new LocalVariablesSorter(Opcodes.ACC_PUBLIC, "(Ljava/lang/String;Ljava/lang/String;)V", mv2);
+		LocalVariablesSorter mv = new LocalVariablesSorter(Opcodes.ACC_PUBLIC, "(II)V", mv2);
 		Label startLabel = new Label();
 		Label endLabel = new Label();
 		mv.visitLabel(startLabel);
@@ -44,39 +46,16 @@ public class ActionNode implements StatementNode {
 		vc.setIndex(0);
 
 		if (actions != null && !actions.isEmpty()) {
-			Map<Integer, ActionNode> hashToAction = new TreeMap<>();
-			Map<Integer, Label> hashToLabel = new TreeMap<>();
-			for (Map.Entry<String, ActionNode> entry : actions.entrySet()) {
-				int hashCode = entry.getKey().hashCode();
-				hashToAction.put(hashCode, entry.getValue());
-				hashToLabel.put(hashCode, new Label());
+			SortedMap<Integer, Label> idToLabel = new TreeMap<>();
+			for (String verb : actions.keySet()) {
+				idToLabel.put(gameContext.gameNode.getWordId(verb), new Label());
 			}
 
-			Label arg1NonNull = new Label();
-			mv.visitVarInsn(ALOAD, 1);
-			mv.visitJumpInsn(IFNONNULL, arg1NonNull);
-			mv.visitLdcInsn("");
-			mv.visitVarInsn(ASTORE, 1);
-			mv.visitLabel(arg1NonNull);
-
-			Label arg2NonNull = new Label();
-			mv.visitVarInsn(ALOAD, 2);
-			mv.visitJumpInsn(IFNONNULL, arg2NonNull);
-			mv.visitLdcInsn("");
-			mv.visitVarInsn(ASTORE, 2);
-			mv.visitLabel(arg2NonNull);
-
-			mv.visitVarInsn(ALOAD, 1);
-			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "hashCode", "()I", false);
-			mv.visitLookupSwitchInsn(
-					endLabel,
-					hashToAction.keySet().stream()
-							.mapToInt(Integer::intValue)
-							.toArray(),
-					hashToLabel.values().toArray(new Label[0]));
+			mv.visitVarInsn(ILOAD, 1);
+			AsmUtils.createSwitch(mv, endLabel, idToLabel);
 
 			for (Map.Entry<String, ActionNode> entry : actions.entrySet()) {
-				mv.visitLabel(hashToLabel.get(entry.getKey().hashCode()));
+				mv.visitLabel(idToLabel.get(gameContext.gameNode.getWordId(entry.getKey())));
 	//			mv.visitFrame(Opcodes.F_SAME, 0, null, 0, null);
 
 				entry.getValue().generate(mv, gameContext);
@@ -94,27 +73,18 @@ public class ActionNode implements StatementNode {
 
 	@Override
 	public void generate(MethodVisitor mv, GameContext gameContext) {
-		Map<Integer, ActionCode> hashToAction = new TreeMap<>();
-		Map<Integer, Label> hashToLabel = new TreeMap<>();
+		SortedMap<Integer, Label> idToLabel = new TreeMap<>();
 		for (ActionCode actionCode : actionCodes) {
-			int hashCode = actionCode.arg2 == null ? 0 : actionCode.arg2.hashCode();
-			hashToAction.put(hashCode, actionCode);
-			hashToLabel.put(hashCode, new Label());
+			idToLabel.put(gameContext.gameNode.getWordId(actionCode.arg2), new Label());
 		}
 
 		Label endLabel = new Label();
 
-		mv.visitVarInsn(ALOAD, 2);
-		mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "hashCode", "()I", false);
-		mv.visitLookupSwitchInsn(
-				endLabel,
-				hashToAction.keySet().stream()
-						.mapToInt(Integer::intValue)
-						.toArray(),
-				hashToLabel.values().toArray(new Label[0]));
+		mv.visitVarInsn(ILOAD, 2);
+		AsmUtils.createSwitch(mv, endLabel, idToLabel);
 
 		for (ActionCode actionCode : actionCodes) {
-			mv.visitLabel(hashToLabel.get(actionCode.arg2 == null ? 0 : actionCode.arg2.hashCode()));
+			mv.visitLabel(idToLabel.get(gameContext.gameNode.getWordId(actionCode.arg2)));
 //			mv.visitFrame(Opcodes.F_SAME, 0, null, 0, null);
 
 			actionCode.generate(mv, gameContext);
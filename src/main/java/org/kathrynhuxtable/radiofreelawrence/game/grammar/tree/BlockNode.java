@@ -35,4 +35,17 @@ public class BlockNode implements StatementNode {
 		mv.visitLabel(endLabel);
 		gameContext.variableStore.closeBlockScope(mv, startLabel, endLabel);
 	}
+
+	/*
+	 * Let a leading input() wait for a command in a stepped game. The waiting block is run again
+	 * from its start once the command arrives, so input() is only allowed where nothing comes before it.
+	 */
+	void allowLeadingInput() {
+		if (!statements.isEmpty()
+				&& statements.get(0) instanceof ExpressionStatementNode statement
+				&& statement.getExpression() instanceof FunctionInvocationNode invocation
+				&& FunctionInvocationNode.INPUT.equals(invocation.getInternalFunction())) {
+			invocation.setResumePoint(true);
+		}
+	}
 }
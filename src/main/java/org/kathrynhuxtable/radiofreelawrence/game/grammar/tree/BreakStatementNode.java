@@ -5,11 +5,11 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.objectweb.asm.MethodVisitor;
-import org.objectweb.asm.Type;
 
+import org.kathrynhuxtable.radiofreelawrence.game.AsmUtils;
 import org.kathrynhuxtable.radiofreelawrence.game.GameContext;
-import org.kathrynhuxtable.radiofreelawrence.game.exception.BreakException;
 import org.kathrynhuxtable.radiofreelawrence.game.exception.GameRuntimeException;
+import org.kathrynhuxtable.radiofreelawrence.game.grammar.ControlSignal;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.ControlType;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.SourceLocation;
 
@@ -26,9 +26,12 @@ public class BreakStatementNode implements StatementNode {
 
 	@Override
 	public void generate(MethodVisitor mv, GameContext gameContext) {
-		gameContext.gameNode.setLineNumber(mv, sourceLocation);
+		gameContext.setLineNumber(mv, sourceLocation);
 		if (controlType != ControlType.CODE) {
-			throwException(mv, Type.getInternalName(BreakException.class));
+			AsmUtils.signalControl(mv,
+					gameContext.variableStore.getCurrentClass(),
+					gameContext.variableStore.getReturnType(),
+					ControlSignal.breakSignal(controlType));
 		} else {
 			try {
 				mv.visitJumpInsn(GOTO, gameContext.getVariableStore().getBreakLabel(identifier));
@@ -37,20 +40,4 @@ public class BreakStatementNode implements StatementNode {
 			}
 		}
 	}
-
-	private void throwException(MethodVisitor mv, String exceptionTypeName) {
-		String controlTypeName = Type.getInternalName(ControlType.class);
-		String controlTypeDescriptor = Type.getDescriptor(ControlType.class);
-
-		mv.visitTypeInsn(NEW, exceptionTypeName);
-		mv.visitInsn(DUP);
-		mv.visitFieldInsn(GETSTATIC, controlTypeName, controlType.name(), controlTypeDescriptor);
-		mv.visitMethodInsn(
-				INVOKESPECIAL,
-				exceptionTypeName,
-				"<init>",
-				"(" + controlTypeDescriptor + ")V",
-				false);
-		mv.visitInsn(ATHROW);
-	}
 }
@@ -5,10 +5,10 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.objectweb.asm.MethodVisitor;
-import org.objectweb.asm.Type;
 
+import org.kathrynhuxtable.radiofreelawrence.game.AsmUtils;
 import org.kathrynhuxtable.radiofreelawrence.game.GameContext;
-import org.kathrynhuxtable.radiofreelawrence.game.exception.ContinueException;
+import org.kathrynhuxtable.radiofreelawrence.game.grammar.ControlSignal;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.ControlType;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.SourceLocation;
 
@@ -25,28 +25,14 @@ public class ContinueStatementNode implements StatementNode {
 
 	@Override
 	public void generate(MethodVisitor mv, GameContext gameContext) {
-		gameContext.gameNode.setLineNumber(mv, sourceLocation);
+		gameContext.setLineNumber(mv, sourceLocation);
 		if (controlType != ControlType.CODE) {
-			throwException(mv, Type.getInternalName(ContinueException.class));
+			AsmUtils.signalControl(mv,
+					gameContext.variableStore.getCurrentClass(),
+					gameContext.variableStore.getReturnType(),
+					ControlSignal.CONTINUE);
 		} else {
 			mv.visitJumpInsn(GOTO, gameContext.getVariableStore().getBreakLabel(identifier));
 		}
 	}
-
-	private void throwException(MethodVisitor mv, String exceptionTypeName) {
-		String controlTypeName = Type.getInternalName(ControlType.class);
-		String controlTypeDescriptor = Type.getDescriptor(ControlType.class);
-
-		mv.visitTypeInsn(NEW, exceptionTypeName);
-		mv.visitInsn(DUP);
-		mv.visitLdcInsn("Invalid control type. Should not happen");
-		mv.visitFieldInsn(GETSTATIC, controlTypeName, controlType.name(), controlTypeDescriptor);
-		mv.visitMethodInsn(
-				INVOKESPECIAL,
-				exceptionTypeName,
-				"<init>",
-				"(" + controlTypeDescriptor + ")V",
-				false);
-		mv.visitInsn(ATHROW);
-	}
 }
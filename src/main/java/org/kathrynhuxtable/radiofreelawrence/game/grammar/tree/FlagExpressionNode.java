@@ -1,7 +1,5 @@
 package org.kathrynhuxtable.radiofreelawrence.game.grammar.tree;
 
-import java.util.Map;
-
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -31,7 +29,7 @@ public class FlagExpressionNode implements ExprNode {
 
 	@Override
 	public void generate(MethodVisitor mv, GameContext gameContext) {
-		gameContext.gameNode.setLineNumber(mv, sourceLocation);
+		gameContext.setLineNumber(mv, sourceLocation);
 		getFlagValue(mv, gameContext);
 
 		flag.generate(mv, gameContext);
@@ -62,16 +60,9 @@ public class FlagExpressionNode implements ExprNode {
 						"this$0", // outer class "this"
 						GameContext.GAME_CLASS_DESCRIPTOR);
 			}
-			mv.visitFieldInsn(GETFIELD, GameContext.GAME_CLASS_NAME, "variableFlags", Type.getDescriptor(Map.class));
-			mv.visitLdcInsn(variableContext.getName());
-			mv.visitMethodInsn(
-					INVOKEINTERFACE,
-					Type.getInternalName(Map.class),
-					"get",
-					"(" + Type.getDescriptor(Object.class) + ")" + Type.getDescriptor(Object.class),
-					true);
-			mv.visitTypeInsn(CHECKCAST, "java/lang/Integer");
-			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Integer", "intValue", "()I", false);
+			mv.visitFieldInsn(GETFIELD, GameContext.GAME_CLASS_NAME, "variableFlags", Type.getDescriptor(int[].class));
+			mv.visitLdcInsn(gameContext.gameNode.getVariableFlagIndex(variableContext.getName()));
+			mv.visitInsn(IALOAD);
 		} else {
 			throw new GameRuntimeException("Invalid variable type for flag reference: " + variableType + " for " + identifierNode.getName());
 		}
@@ -93,7 +84,6 @@ public class FlagExpressionNode implements ExprNode {
 					"(I)V",
 					true);
 		} else if (variableContext.getVariableScope() == VariableScope.GLOBAL) {
-			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;", false);
 			mv.visitVarInsn(ALOAD, 0);
 			if (gameContext.variableStore.getCurrentClass() != null) {
 				// Need to reference instance variable in outer class
@@ -103,17 +93,11 @@ public class FlagExpressionNode implements ExprNode {
 						"this$0", // outer class "this"
 						GameContext.GAME_CLASS_DESCRIPTOR);
 			}
-			mv.visitFieldInsn(GETFIELD, GameContext.GAME_CLASS_NAME, "variableFlags", Type.getDescriptor(Map.class));
+			mv.visitFieldInsn(GETFIELD, GameContext.GAME_CLASS_NAME, "variableFlags", Type.getDescriptor(int[].class));
 			mv.visitInsn(SWAP);
-			mv.visitLdcInsn(variableContext.getName());
+			mv.visitLdcInsn(gameContext.gameNode.getVariableFlagIndex(variableContext.getName()));
 			mv.visitInsn(SWAP);
-			mv.visitMethodInsn(
-					INVOKEINTERFACE,
-					"java/util/Map",
-					"put",
-					"(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;",
-					true);
-			mv.visitInsn(POP);
+			mv.visitInsn(IASTORE);
 		} else {
 			throw new GameRuntimeException("Invalid variable type for flag reference: " + variableType + " for " + identifierNode.getName());
 		}
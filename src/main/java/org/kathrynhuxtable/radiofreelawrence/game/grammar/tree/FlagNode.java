@@ -13,7 +13,6 @@ import org.kathrynhuxtable.radiofreelawrence.game.GameContext;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.SourceLocation;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.VariableType;
 
-import static org.objectweb.asm.Opcodes.ACC_FINAL;
 import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
 
 @Data
@@ -33,7 +32,7 @@ public class FlagNode implements DeclaratorNode {
 		for (String flag : this.flags) {
 			gameContext.variableStore.addVariable(flag, VariableType.NUMBER);
 
-			AsmUtils.createField(cv, ACC_PUBLIC | ACC_FINAL, flag, "I");
+			AsmUtils.createField(cv, ACC_PUBLIC, flag, "I");
 		}
 	}
 }
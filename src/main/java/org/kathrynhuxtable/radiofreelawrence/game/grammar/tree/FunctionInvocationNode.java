@@ -1,5 +1,6 @@
 package org.kathrynhuxtable.radiofreelawrence.game.grammar.tree;
 
+import java.lang.reflect.Method;
 import java.util.List;
 
 import lombok.AllArgsConstructor;
@@ -9,6 +10,7 @@ import lombok.NoArgsConstructor;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Type;
 
+import org.kathrynhuxtable.radiofreelawrence.game.AsmUtils;
 import org.kathrynhuxtable.radiofreelawrence.game.GameAction;
 import org.kathrynhuxtable.radiofreelawrence.game.GameContext;
 import org.kathrynhuxtable.radiofreelawrence.game.InternalFunctions;
@@ -24,20 +26,24 @@ import static org.objectweb.asm.Opcodes.*;
 @NoArgsConstructor
 @AllArgsConstructor
 public class FunctionInvocationNode implements ExprNode {
+	static final String INPUT = "input";
+
 	private IdentifierNode objectReference;
 	private IdentifierNode identifier;
 	private String internalFunction;
 	private String verbFunction;
 	private List<ExprNode> parameters;
+	// Set on an input() that starts an initial or repeat block, the only place it may wait.
+	private boolean resumePoint;
 	private SourceLocation sourceLocation;
 
 	@Override
 	public void generate(MethodVisitor mv, GameContext gameContext) {
-		gameContext.gameNode.setLineNumber(mv, sourceLocation);
+		gameContext.setLineNumber(mv, sourceLocation);
 		try {
 			if (objectReference != null) {
 				objectReference.generate(mv, gameContext);
-				mv.visitLdcInsn(identifier.getName());
+				mv.visitLdcInsn(gameContext.gameNode.getWordId(identifier.getName()));
 				for (ExprNode parameter : parameters) {
 					parameter.generate(mv, gameContext);
 				}
@@ -45,39 +51,41 @@ public class FunctionInvocationNode implements ExprNode {
 						INVOKEINTERFACE,
 						Type.getInternalName(GameAction.class),
 						"doMessage",
-						"(Ljava/lang/String;I)I",
+						"(II)I",
 						true);
+				AsmUtils.checkControlSignal(mv, gameContext.variableStore.getCurrentClass(), gameContext.variableStore.getReturnType());
 			} else if (internalFunction != null) {
-				mv.visitVarInsn(ALOAD, 0);
-				if (gameContext.variableStore.getCurrentClass() != null) {
-					mv.visitFieldInsn(
-							GETFIELD,
-							gameContext.variableStore.getCurrentClass(),
-							"this$0",
-							GameContext.GAME_CLASS_DESCRIPTOR);
+				if (INPUT.equals(internalFunction) && !resumePoint) {
+					throw new GameRuntimeException("input() must be the first statement of an initial or repeat block");
 				}
-				mv.visitFieldInsn(
-						GETFIELD,
-						GameContext.GAME_CLASS_NAME,
-						"internalFunctions",
-						Type.getDescriptor(InternalFunctions.class));
+				AsmUtils.loadInternalFunctions(mv, gameContext.variableStore.getCurrentClass());
 
-				mv.visitIntInsn(SIPUSH, parameters.size());
-				mv.visitTypeInsn(ANEWARRAY, "java/lang/Object");
+				String methodName = gameContext.getInternalFunctions().getInternalFunction(internalFunction);
+				Class<?>[] parameterTypes = new Class<?>[parameters.size()];
 				for (int index = 0; index < parameters.size(); index++) {
-					mv.visitInsn(DUP);
-					mv.visitIntInsn(SIPUSH, index);
-					parameters.get(index).generate(mv, gameContext);
-					if (!(parameters.get(index) instanceof TextElementNode) && !(parameters.get(index) instanceof IdentifierNode)) {
-						mv.visitMethodInsn(
-								INVOKESTATIC,
-								"java/lang/Integer",
-								"valueOf",
-								"(I)Ljava/lang/Integer;",
-								false);
-					} else if (parameters.get(index) instanceof IdentifierNode identifierNode) {
-						VariableContext variableContext = gameContext.variableStore.getVariable(identifierNode.getName());
-						if (variableContext != null && variableContext.getVariableType() == VariableType.NUMBER) {
+					parameterTypes[index] = isIntParameter(parameters.get(index), gameContext) ? int.class : Object.class;
+				}
+				Method typedMethod = gameContext.getInternalFunctions().getTypedInternalFunction(methodName, parameterTypes);
+
+				if (typedMethod != null) {
+					// Typed shape for these argument types, so pass them straight through.
+					for (ExprNode parameter : parameters) {
+						parameter.generate(mv, gameContext);
+					}
+					mv.visitMethodInsn(
+							INVOKEVIRTUAL,
+							Type.getInternalName(InternalFunctions.class),
+							methodName,
+							Type.getMethodDescriptor(typedMethod),
+							false);
+				} else {
+					mv.visitIntInsn(SIPUSH, parameters.size());
+					mv.visitTypeInsn(ANEWARRAY, "java/lang/Object");
+					for (int index = 0; index < parameters.size(); index++) {
+						mv.visitInsn(DUP);
+						mv.visitIntInsn(SIPUSH, index);
+						parameters.get(index).generate(mv, gameContext);
+						if (parameterTypes[index] == int.class) {
 							mv.visitMethodInsn(
 									INVOKESTATIC,
 									"java/lang/Integer",
@@ -85,16 +93,17 @@ public class FunctionInvocationNode implements ExprNode {
 									"(I)Ljava/lang/Integer;",
 									false);
 						}
+						mv.visitInsn(AASTORE);
 					}
-					mv.visitInsn(AASTORE);
-				}
 
-				mv.visitMethodInsn(
-						INVOKEVIRTUAL,
-						Type.getInternalName(InternalFunctions.class),
-						gameContext.getInternalFunctions().getInternalFunction(internalFunction),
-						"([Ljava/lang/Object;)I",
-						false);
+					mv.visitMethodInsn(
+							INVOKEVIRTUAL,
+							Type.getInternalName(InternalFunctions.class),
+							methodName,
+							"([Ljava/lang/Object;)I",
+							false);
+				}
+				AsmUtils.checkControlSignal(mv, gameContext.variableStore.getCurrentClass(), gameContext.variableStore.getReturnType());
 			} else if (identifier != null) {
 				VariableContext variableContext = gameContext.variableStore.getVariable(identifier.getName());
 				if (variableContext == null) {
@@ -128,6 +137,7 @@ public class FunctionInvocationNode implements ExprNode {
 							identifier.getName(),
 							descriptor.toString(),
 							false);
+					AsmUtils.checkControlSignal(mv, gameContext.variableStore.getCurrentClass(), gameContext.variableStore.getReturnType());
 				} else if (variableType == VariableType.TEXT) {
 					mv.visitVarInsn(ALOAD, 0);
 					if (gameContext.variableStore.getCurrentClass() != null) {
@@ -141,10 +151,10 @@ public class FunctionInvocationNode implements ExprNode {
 
 					StringBuilder descriptor = new StringBuilder("(");
 					identifier.generate(mv, gameContext);
-					descriptor.append("Ljava/lang/String;");
+					generateWordId(mv, gameContext);
+					descriptor.append("I");
 					for (ExprNode parameter : parameters) {
-						parameter.generate(mv, gameContext);
-						descriptor.append(parameter.getVariableType(gameContext).getDescriptor());
+						descriptor.append(generateVerbParameter(mv, parameter, gameContext));
 					}
 					descriptor.append(")V");
 					mv.visitMethodInsn(
@@ -153,13 +163,13 @@ public class FunctionInvocationNode implements ExprNode {
 							"doAction",
 							descriptor.toString(),
 							false);
+					AsmUtils.checkControlSignal(mv, gameContext.variableStore.getCurrentClass(), gameContext.variableStore.getReturnType());
 					mv.visitInsn(ICONST_1);
 				} else if (variableType == VariableType.OBJECT || variableType == VariableType.PLACE || variableType == VariableType.REFERENCE) {
 					identifier.generate(mv, gameContext);
 					StringBuilder descriptor = new StringBuilder("(");
 					for (ExprNode parameter : parameters) {
-						parameter.generate(mv, gameContext);
-						descriptor.append(parameter.getVariableType(gameContext).getDescriptor());
+						descriptor.append(generateVerbParameter(mv, parameter, gameContext));
 					}
 					descriptor.append(")V");
 					mv.visitMethodInsn(
@@ -168,6 +178,7 @@ public class FunctionInvocationNode implements ExprNode {
 							"doAction",
 							descriptor.toString(),
 							true);
+					AsmUtils.checkControlSignal(mv, gameContext.variableStore.getCurrentClass(), gameContext.variableStore.getReturnType());
 					mv.visitInsn(ICONST_1);
 				} else {
 					throw new GameRuntimeException("Invalid method type: " + identifier.getName());
@@ -182,11 +193,10 @@ public class FunctionInvocationNode implements ExprNode {
 							"this$0", // outer class "this"
 							GameContext.GAME_CLASS_DESCRIPTOR);
 				}
-				StringBuilder descriptor = new StringBuilder("(Ljava/lang/String;");
-				mv.visitLdcInsn(verbFunction);
+				StringBuilder descriptor = new StringBuilder("(I");
+				mv.visitLdcInsn(gameContext.gameNode.getWordId(verbFunction));
 				for (ExprNode parameter : parameters) {
-					parameter.generate(mv, gameContext);
-					descriptor.append(parameter.getVariableType(gameContext).getDescriptor());
+					descriptor.append(generateVerbParameter(mv, parameter, gameContext));
 				}
 				descriptor.append(")V");
 				mv.visitMethodInsn(
@@ -195,6 +205,7 @@ public class FunctionInvocationNode implements ExprNode {
 						"doAction",
 						descriptor.toString(),
 						false);
+				AsmUtils.checkControlSignal(mv, gameContext.variableStore.getCurrentClass(), gameContext.variableStore.getReturnType());
 				mv.visitInsn(ICONST_1);
 			} else {
 				throw new GameRuntimeException("Unknown function invocation");
@@ -204,6 +215,38 @@ public class FunctionInvocationNode implements ExprNode {
 		}
 	}
 
+	private String generateVerbParameter(MethodVisitor mv, ExprNode parameter, GameContext gameContext) {
+		// Words are passed to doAction as vocabulary ids.
+		parameter.generate(mv, gameContext);
+		VariableType variableType = parameter.getVariableType(gameContext);
+		if (variableType == VariableType.TEXT || variableType == VariableType.TEXT_NODE) {
+			generateWordId(mv, gameContext);
+			return "I";
+		}
+		return variableType.getDescriptor();
+	}
+
+	private void generateWordId(MethodVisitor mv, GameContext gameContext) {
+		AsmUtils.loadInternalFunctions(mv, gameContext.variableStore.getCurrentClass());
+		mv.visitInsn(SWAP);
+		mv.visitMethodInsn(
+				INVOKEVIRTUAL,
+				Type.getInternalName(InternalFunctions.class),
+				"wordId",
+				"(Ljava/lang/String;)I",
+				false);
+	}
+
+	private boolean isIntParameter(ExprNode parameter, GameContext gameContext) {
+		if (parameter instanceof TextElementNode) {
+			return false;
+		} else if (parameter instanceof IdentifierNode identifierNode) {
+			VariableContext variableContext = gameContext.variableStore.getVariable(identifierNode.getName());
+			return variableContext != null && variableContext.getVariableType() == VariableType.NUMBER;
+		}
+		return true;
+	}
+
 	@Override
 	public VariableType getVariableType(GameContext gameContext) {
 		return VariableType.NUMBER;
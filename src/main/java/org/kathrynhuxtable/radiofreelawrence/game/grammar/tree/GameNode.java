@@ -1,6 +1,7 @@
 package org.kathrynhuxtable.radiofreelawrence.game.grammar.tree;
 
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 import lombok.Data;
 import org.objectweb.asm.ClassVisitor;
@@ -9,6 +10,7 @@ import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Type;
 
 import org.kathrynhuxtable.radiofreelawrence.game.*;
+import org.kathrynhuxtable.radiofreelawrence.game.exception.GameRuntimeException;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.SourceLocation;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.VariableType;
 
@@ -16,13 +18,22 @@ import static org.objectweb.asm.Opcodes.*;
 
 @Data
 public class GameNode implements BaseNode {
+	// Each createPlace switch method stays well under HotSpot's 8000 byte limit for compiling a method.
+	private static final int PLACES_PER_METHOD = 500;
+	// Likewise for the name switch of getTextVariable.
+	private static final int TEXT_VARIABLES_PER_METHOD = 200;
+
+	private static final String TEXT_TEMPLATES = "textTemplates";
+
 	private Map<String, String> info = new LinkedHashMap<>();
+	private List<String> sourceFiles = new ArrayList<>();
 	private SourceLocation sourceLocation = new SourceLocation(null, 0, 0);
 
 	Map<String, VocabularyNode> verbs = new LinkedHashMap<>();
 	Map<String, BaseNode> identifiers = new LinkedHashMap<>();
-	List<TextElementNode> textElements = new ArrayList<>();
-	Map<String, Integer> textElementIndexes = new LinkedHashMap<>();
+	Map<String, Integer> variableFlagIndexes = new LinkedHashMap<>();
+	Map<String, Integer> placeIndexes = new LinkedHashMap<>();
+	Map<String, Integer> wordIds = new LinkedHashMap<>();
 	List<String> noise = new ArrayList<>();
 	List<VariableNode> variables = new ArrayList<>();
 	List<FlagNode> variableFlags = new ArrayList<>();
@@ -32,26 +43,25 @@ public class GameNode implements BaseNode {
 	List<ObjectNode> objects = new ArrayList<>();
 	List<PlaceNode> places = new ArrayList<>(); // TODO Generate these
 	List<TextNode> texts = new ArrayList<>();
+	List<TextElementNode> saidTexts = new ArrayList<>();
 	Map<String, ActionNode> actions = new LinkedHashMap<>();
 	Map<String, ProcNode> procs = new LinkedHashMap<>();
 	List<InitialNode> inits = new ArrayList<>();
 	List<RepeatNode> repeats = new ArrayList<>();
 	Map<String, StateClauseNode> states = new LinkedHashMap<>();
 
-	int lineNumber = 0;
-
 	public void generate(ClassVisitor cv, GameContext gameContext) {
-		cv.visit(V17, ACC_PUBLIC | ACC_SUPER, GameContext.GAME_CLASS_NAME, null, Type.getInternalName(Object.class), null);
+		cv.visit(V17, ACC_PUBLIC | ACC_SUPER, GameContext.GAME_CLASS_NAME, null, Type.getInternalName(Object.class),
+				new String[] { Type.getInternalName(GameDriver.class), Type.getInternalName(GameState.class),
+						Type.getInternalName(PlaceTable.Factory.class) });
 
 		AsmUtils.createField(cv, ACC_PUBLIC, "internalFunctions", Type.getDescriptor(InternalFunctions.class));
 
-		Set<Integer> seenTextElement = new HashSet<>();
-		for (TextElementNode textElement : textElements) {
-			if (!seenTextElement.contains(textElement.getIndex())) {
-				textElement.generate(cv, gameContext);
-				seenTextElement.add(textElement.getIndex());
-			}
+		placeIndexes.clear();
+		for (PlaceNode placeNode : places) {
+			placeIndexes.putIfAbsent(placeNode.getName(), placeIndexes.size());
 		}
+		internVocabulary();
 
 		for (TextNode textNode : texts) {
 			textNode.generate(cv, gameContext);
@@ -71,15 +81,13 @@ public class GameNode implements BaseNode {
 			stateClauseNode.generate(cv, gameContext);
 		}
 
-		AsmUtils.createField(cv, ACC_PUBLIC, "noise", "Ljava/util/Set;",
-				"Ljava/util/Set<Ljava/lang/String>;");
 		AsmUtils.createField(cv, ACC_PUBLIC, "verbs", "Ljava/util/Set;",
 				"Ljava/util/Set<Ljava/lang/String>;");
 
-		AsmUtils.createField(cv, ACC_PUBLIC, "variableFlags", "Ljava/util/Map;",
-				"Ljava/util/Map<Ljava/lang/String;Ljava/lang/Integer;>;");
+		AsmUtils.createField(cv, ACC_PUBLIC, "variableFlags", Type.getDescriptor(int[].class));
 		for (VariableNode variableNode : variables) {
 			variableNode.generate(cv, gameContext);
+			assignVariableFlagIndex(variableNode.getVariable());
 		}
 
 		for (ProcNode procNode : procs.values()) {
@@ -98,11 +106,7 @@ public class GameNode implements BaseNode {
 					ACC_PUBLIC);
 		}
 
-		AsmUtils.createField(cv,
-				ACC_PUBLIC,
-				"places",
-				"Ljava/util/Map;",
-				"Ljava/util/Map<" + Type.getDescriptor(String.class) + Type.getDescriptor(GamePlace.class) + ">;");
+		AsmUtils.createField(cv, ACC_PUBLIC | ACC_FINAL, "places", Type.getDescriptor(PlaceTable.class));
 
 		AsmUtils.createField(cv,
 				ACC_PUBLIC,
@@ -127,6 +131,13 @@ public class GameNode implements BaseNode {
 			repeat.generate(cv, gameContext);
 		}
 
+		generateRunInits(cv);
+		generateRunTurn(cv);
+		generateGameState(cv);
+		generateCreatePlace(cv);
+		generateTextTemplates(cv, gameContext);
+		generateTextVariable(cv);
+
 		generateConstructor(cv, gameContext);
 
 		cv.visitEnd();
@@ -151,18 +162,18 @@ public class GameNode implements BaseNode {
 				INVOKEVIRTUAL,
 				Type.getInternalName(InternalFunctions.class),
 				"setGame",
-				"(" + Type.getDescriptor(Object.class) + ")V",
+				"(" + Type.getDescriptor(GameState.class) + ")V",
 				false);
 
-		generateTextElements(mv);
-		generateTexts(mv);
-		generateFlags(mv);
-		generateStates(gameContext, mv);
-		generateVariables(mv);
-		AsmUtils.createSet(mv, GameContext.GAME_CLASS_NAME, "noise", noise);
+		// Text elements are constants, so need no code. Everything else that scales with the size of
+		// the game goes into helper methods of bounded size.
+		generateTexts(cv, mv);
+		generateFlags(cv, mv);
+		generateStates(cv, mv, gameContext);
+		generateVariables(cv, mv);
 //		AsmUtils.createSet(mv, GameContext.GAME_CLASS_NAME, "verbs", verbs);
 
-		generatePlaceAssignments(mv);
+		generatePlaceTable(mv);
 
 		// Construct objects hashmap
 		mv.visitVarInsn(ALOAD, 0);
@@ -176,21 +187,333 @@ public class GameNode implements BaseNode {
 		mv.visitEnd();
 	}
 
-	private void generateTextElements(MethodVisitor mv) {
-		Set<Integer> seenTextElement = new HashSet<>();
-		for (TextElementNode textElementNode : textElements) {
-			if (!seenTextElement.contains(textElementNode.getIndex())) {
-				String name = "textElement" + textElementNode.getIndex();
+	private void generateRunInits(ClassVisitor cv) {
+		// Call each initial block in turn, stopping early if one of them signals a break.
+		List<String> procNames = new ArrayList<>();
+		for (InitialNode init : inits) {
+			procNames.add("initialProc" + init.getIndex());
+		}
+		generateResumableRun(cv, "runInits", procNames, "endInits");
+	}
+
+	private void generateRunTurn(ClassVisitor cv) {
+		// Call each repeat block in turn, stopping early if one of them signals the end of the turn.
+		List<String> procNames = new ArrayList<>();
+		for (RepeatNode repeat : repeats) {
+			procNames.add("repeatProc" + repeat.getIndex());
+		}
+		generateResumableRun(cv, "runTurn", procNames, "endTurn");
+	}
+
+	private void generateResumableRun(ClassVisitor cv, String methodName, List<String> procNames, String endMethodName) {
+		// int run(int first): jump to block "first", and return the position of a block waiting for input,
+		// or -1 once the sequence is done.
+		MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, methodName, "(I)I", null, null);
+		mv.visitParameter("first", 0);
+		mv.visitCode();
+		Label doneLabel = new Label();
+		Label[] blockLabels = new Label[procNames.size()];
+		SortedMap<Integer, Label> cases = new TreeMap<>();
+		for (int position = 0; position < blockLabels.length; position++) {
+			blockLabels[position] = new Label();
+			cases.put(position, blockLabels[position]);
+		}
+		mv.visitVarInsn(ILOAD, 1);
+		AsmUtils.createSwitch(mv, doneLabel, cases);
+
+		for (int position = 0; position < blockLabels.length; position++) {
+			mv.visitLabel(blockLabels[position]);
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitMethodInsn(INVOKEVIRTUAL, GameContext.GAME_CLASS_NAME, procNames.get(position), "()I", false);
+			mv.visitInsn(POP);
+
+			Label nextLabel = new Label();
+			AsmUtils.loadInternalFunctions(mv, null);
+			mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(InternalFunctions.class), "isAwaitingInput", "()Z", false);
+			mv.visitJumpInsn(IFEQ, nextLabel);
+			mv.visitLdcInsn(position);
+			mv.visitInsn(IRETURN);
+
+			mv.visitLabel(nextLabel);
+			AsmUtils.loadInternalFunctions(mv, null);
+			mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(InternalFunctions.class), endMethodName, "()Z", false);
+			mv.visitJumpInsn(IFNE, doneLabel);
+		}
+		mv.visitLabel(doneLabel);
+		mv.visitInsn(ICONST_M1);
+		mv.visitInsn(IRETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	private void generateGameState(ClassVisitor cv) {
+		// Accessors for the kernel variables used by InternalFunctions.
+		String objectDescriptor = Type.getDescriptor(Object.class);
+		String stringDescriptor = Type.getDescriptor(String.class);
+		for (String name : List.of("here", "there")) {
+			createGameStateAccessors(cv, name, objectDescriptor);
+		}
+		for (String name : List.of("arg1", "arg2")) {
+			createGameStateAccessors(cv, name, stringDescriptor);
+		}
+		createGameStateAccessors(cv, "status", "I");
+
+		for (String name : List.of("moved", "badword", "ambigword", "badsyntax")) {
+			String getterName = "get" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+			if (identifiers.containsKey(name)) {
+				AsmUtils.createGetter(cv, GameContext.GAME_CLASS_NAME, ACC_PUBLIC, getterName, name, "I");
+			} else {
+				// Not declared by this game, so it can never be set.
+				MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, getterName, "()I", null, null);
+				mv.visitCode();
+				mv.visitInsn(ICONST_0);
+				mv.visitInsn(IRETURN);
+				mv.visitMaxs(0, 0);
+				mv.visitEnd();
+			}
+		}
+
+		AsmUtils.createGetter(cv, GameContext.GAME_CLASS_NAME, ACC_PUBLIC, "getPlaces", "places", Type.getDescriptor(PlaceTable.class));
+		AsmUtils.createGetter(cv, GameContext.GAME_CLASS_NAME, ACC_PUBLIC, "getObjects", "objects", Type.getDescriptor(Map.class));
+		AsmUtils.createGetter(cv, GameContext.GAME_CLASS_NAME, ACC_PUBLIC, "getVariableFlags", "variableFlags", Type.getDescriptor(int[].class));
+	}
+
+	private void createGameStateAccessors(ClassVisitor cv, String name, String descriptor) {
+		String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+		AsmUtils.createGetter(cv, GameContext.GAME_CLASS_NAME, ACC_PUBLIC, "get" + suffix, name, descriptor);
+		AsmUtils.createSetter(cv, GameContext.GAME_CLASS_NAME, ACC_PUBLIC, "set" + suffix, name, descriptor);
+	}
+
+	private void generateTextTemplates(ClassVisitor cv, GameContext gameContext) {
+		// Every text the game can say as it stands, from text directives, place and object
+		// descriptions and literals passed to say, is parsed here, and the class initializer builds
+		// its template into a map shared by all instances. A text that does not parse is reported now.
+		Map<String, SourceLocation> sayableTexts = new LinkedHashMap<>();
+		for (TextNode textNode : texts) {
+			for (TextElementNode textElementNode : textNode.getTextNodes()) {
+				sayableTexts.putIfAbsent(textElementNode.getText(), textElementNode.getSourceLocation());
+			}
+		}
+		for (PlaceNode placeNode : places) {
+			if (placeNode.getBriefDescription() != null) {
+				sayableTexts.putIfAbsent(placeNode.getBriefDescription(), placeNode.getSourceLocation());
+			}
+		}
+		for (ObjectNode objectNode : objects) {
+			if (objectNode.getBriefDescription() != null) {
+				sayableTexts.putIfAbsent(objectNode.getBriefDescription(), objectNode.getSourceLocation());
+			}
+		}
+		for (TextElementNode textElementNode : saidTexts) {
+			sayableTexts.putIfAbsent(textElementNode.getText(), textElementNode.getSourceLocation());
+		}
+
+		AsmUtils.createField(cv, ACC_PRIVATE | ACC_STATIC | ACC_FINAL, TEXT_TEMPLATES, Type.getDescriptor(Map.class),
+				"Ljava/util/Map<" + Type.getDescriptor(String.class) + Type.getDescriptor(TextTemplate.class) + ">;");
+
+		MethodVisitor clinit = cv.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+		clinit.visitCode();
+		clinit.visitTypeInsn(NEW, Type.getInternalName(HashMap.class));
+		clinit.visitInsn(DUP);
+		clinit.visitLdcInsn(sayableTexts.size() * 4 / 3 + 1);
+		clinit.visitMethodInsn(INVOKESPECIAL, Type.getInternalName(HashMap.class), "<init>", "(I)V", false);
+		clinit.visitFieldInsn(PUTSTATIC, GameContext.GAME_CLASS_NAME, TEXT_TEMPLATES, Type.getDescriptor(Map.class));
+
+		InitChunker chunker = new InitChunker(cv, GameContext.GAME_CLASS_NAME, "initTextTemplates", true);
+		for (Map.Entry<String, SourceLocation> entry : sayableTexts.entrySet()) {
+			String text = entry.getKey();
+			TextTemplate template;
+			try {
+				template = TextTemplate.compile(text);
+			} catch (GameRuntimeException e) {
+				gameContext.errorReporter.reportError(entry.getValue(), e.getMessage());
+				continue;
+			}
+			MethodVisitor mv = chunker.next();
+			mv.visitFieldInsn(GETSTATIC, GameContext.GAME_CLASS_NAME, TEXT_TEMPLATES, Type.getDescriptor(Map.class));
+			mv.visitLdcInsn(text);
+			generateTextTemplate(mv, template);
+			mv.visitMethodInsn(INVOKEINTERFACE, Type.getInternalName(Map.class), "put",
+					"(" + Type.getDescriptor(Object.class) + Type.getDescriptor(Object.class) + ")" + Type.getDescriptor(Object.class), true);
+			mv.visitInsn(POP);
+		}
+		chunker.callFrom(clinit);
+		clinit.visitInsn(RETURN);
+		clinit.visitMaxs(0, 0);
+		clinit.visitEnd();
+
+		// TextTemplate getTextTemplate(String text): the template built above, or one parsed now for
+		// a computed text.
+		MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, "getTextTemplate",
+				"(" + Type.getDescriptor(String.class) + ")" + Type.getDescriptor(TextTemplate.class), null, null);
+		mv.visitParameter("text", 0);
+		mv.visitCode();
+		Label computedLabel = new Label();
+		mv.visitFieldInsn(GETSTATIC, GameContext.GAME_CLASS_NAME, TEXT_TEMPLATES, Type.getDescriptor(Map.class));
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitMethodInsn(INVOKEINTERFACE, Type.getInternalName(Map.class), "get",
+				"(" + Type.getDescriptor(Object.class) + ")" + Type.getDescriptor(Object.class), true);
+		mv.visitTypeInsn(CHECKCAST, Type.getInternalName(TextTemplate.class));
+		mv.visitInsn(DUP);
+		mv.visitJumpInsn(IFNULL, computedLabel);
+		mv.visitInsn(ARETURN);
+		mv.visitLabel(computedLabel);
+		mv.visitInsn(POP);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(TextTemplate.class), "compile",
+				"(" + Type.getDescriptor(String.class) + ")" + Type.getDescriptor(TextTemplate.class), false);
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	/*
+	 * Leaves a new TextTemplate with the same segments as template on the stack.
+	 */
+	private static void generateTextTemplate(MethodVisitor mv, TextTemplate template) {
+		String segmentName = Type.getInternalName(TextTemplate.Segment.class);
+		List<TextTemplate.Segment> segments = template.getSegments();
+		mv.visitTypeInsn(NEW, Type.getInternalName(TextTemplate.class));
+		mv.visitInsn(DUP);
+		mv.visitLdcInsn(segments.size());
+		mv.visitTypeInsn(ANEWARRAY, segmentName);
+		for (int index = 0; index < segments.size(); index++) {
+			mv.visitInsn(DUP);
+			mv.visitLdcInsn(index);
+			TextTemplate.Segment segment = segments.get(index);
+			String className = Type.getInternalName(segment.getClass());
+			mv.visitTypeInsn(NEW, className);
+			mv.visitInsn(DUP);
+			String descriptor;
+			if (segment instanceof TextTemplate.Literal literal) {
+				mv.visitLdcInsn(literal.text());
+				descriptor = "(" + Type.getDescriptor(String.class) + ")V";
+			} else if (segment instanceof TextTemplate.Identifier identifier) {
+				mv.visitLdcInsn(identifier.name());
+				descriptor = "(" + Type.getDescriptor(String.class) + ")V";
+			} else if (segment instanceof TextTemplate.Switch switchSegment) {
+				TextTemplate[] options = switchSegment.options();
+				mv.visitLdcInsn(options.length);
+				mv.visitTypeInsn(ANEWARRAY, Type.getInternalName(TextTemplate.class));
+				for (int option = 0; option < options.length; option++) {
+					mv.visitInsn(DUP);
+					mv.visitLdcInsn(option);
+					generateTextTemplate(mv, options[option]);
+					mv.visitInsn(AASTORE);
+				}
+				descriptor = "(" + Type.getDescriptor(TextTemplate[].class) + ")V";
+			} else {
+				descriptor = "()V";
+			}
+			mv.visitMethodInsn(INVOKESPECIAL, className, "<init>", descriptor, false);
+			mv.visitInsn(AASTORE);
+		}
+		mv.visitMethodInsn(INVOKESPECIAL, Type.getInternalName(TextTemplate.class), "<init>",
+				"(" + Type.getDescriptor(TextTemplate.Segment[].class) + ")V", false);
+	}
+
+	private void generateTextVariable(ClassVisitor cv) {
+		// Object getTextVariable(String name): the text or variable a template names in {name}, read
+		// straight from its field. Switches on the hash of the name, split like createPlace for games
+		// with many texts, picking the method by the hash modulo the number of methods.
+		Map<String, String> fields = new LinkedHashMap<>();
+		for (TextNode textNode : texts) {
+			fields.put(textNode.getName(), Type.getDescriptor(Text.class));
+		}
+		for (VariableNode variableNode : variables) {
+			if (variableNode.getVariableType().reference) {
+				fields.put(variableNode.getVariable(), variableNode.getType());
+			}
+		}
+		List<Map.Entry<String, String>> entries = new ArrayList<>(fields.entrySet());
+		if (entries.size() <= TEXT_VARIABLES_PER_METHOD) {
+			generateTextVariableSwitch(cv, ACC_PUBLIC, "getTextVariable", entries);
+			return;
+		}
+
+		int chunks = (entries.size() + TEXT_VARIABLES_PER_METHOD - 1) / TEXT_VARIABLES_PER_METHOD;
+		List<List<Map.Entry<String, String>>> chunkEntries = new ArrayList<>();
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			chunkEntries.add(new ArrayList<>());
+		}
+		for (Map.Entry<String, String> entry : entries) {
+			chunkEntries.get(Math.floorMod(entry.getKey().hashCode(), chunks)).add(entry);
+		}
+
+		String descriptor = "(" + Type.getDescriptor(String.class) + ")" + Type.getDescriptor(Object.class);
+		MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, "getTextVariable", descriptor, null, null);
+		mv.visitParameter("name", 0);
+		mv.visitCode();
+		Label defaultLabel = new Label();
+		SortedMap<Integer, Label> cases = new TreeMap<>();
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			cases.put(chunk, new Label());
+		}
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(String.class), "hashCode", "()I", false);
+		mv.visitLdcInsn(chunks);
+		mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(Math.class), "floorMod", "(II)I", false);
+		AsmUtils.createSwitch(mv, defaultLabel, cases);
+		for (Map.Entry<Integer, Label> entry : cases.entrySet()) {
+			String methodName = "getTextVariable" + entry.getKey();
+			mv.visitLabel(entry.getValue());
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitMethodInsn(INVOKESPECIAL, GameContext.GAME_CLASS_NAME, methodName, descriptor, false);
+			mv.visitInsn(ARETURN);
+
+			generateTextVariableSwitch(cv, ACC_PRIVATE, methodName, chunkEntries.get(entry.getKey()));
+		}
+		mv.visitLabel(defaultLabel);
+		mv.visitInsn(ACONST_NULL);
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	private void generateTextVariableSwitch(ClassVisitor cv, int access, String methodName, List<Map.Entry<String, String>> entries) {
+		MethodVisitor mv = cv.visitMethod(access, methodName,
+				"(" + Type.getDescriptor(String.class) + ")" + Type.getDescriptor(Object.class), null, null);
+		mv.visitParameter("name", 0);
+		mv.visitCode();
+		Label defaultLabel = new Label();
+		SortedMap<Integer, Label> cases = new TreeMap<>();
+		Map<Integer, List<Map.Entry<String, String>>> entriesByHash = new HashMap<>();
+		for (Map.Entry<String, String> entry : entries) {
+			int hash = entry.getKey().hashCode();
+			cases.putIfAbsent(hash, new Label());
+			entriesByHash.computeIfAbsent(hash, h -> new ArrayList<>()).add(entry);
+		}
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(String.class), "hashCode", "()I", false);
+		AsmUtils.createSwitch(mv, defaultLabel, cases);
+		for (Map.Entry<Integer, Label> hashCase : cases.entrySet()) {
+			mv.visitLabel(hashCase.getValue());
+			for (Map.Entry<String, String> entry : entriesByHash.get(hashCase.getKey())) {
+				Label nextLabel = new Label();
+				mv.visitLdcInsn(entry.getKey());
+				mv.visitVarInsn(ALOAD, 1);
+				mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(String.class), "equals",
+						"(" + Type.getDescriptor(Object.class) + ")Z", false);
+				mv.visitJumpInsn(IFEQ, nextLabel);
 				mv.visitVarInsn(ALOAD, 0);
-				mv.visitLdcInsn(textElementNode.getText());
-				mv.visitFieldInsn(PUTFIELD, GameContext.GAME_CLASS_NAME, name, Type.getDescriptor(String.class));
-				seenTextElement.add(textElementNode.getIndex());
+				mv.visitFieldInsn(GETFIELD, GameContext.GAME_CLASS_NAME, entry.getKey(), entry.getValue());
+				mv.visitInsn(ARETURN);
+				mv.visitLabel(nextLabel);
 			}
+			mv.visitJumpInsn(GOTO, defaultLabel);
 		}
+		mv.visitLabel(defaultLabel);
+		mv.visitInsn(ACONST_NULL);
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
 	}
 
-	private void generateTexts(MethodVisitor mv) {
+	private void generateTexts(ClassVisitor cv, MethodVisitor constructor) {
+		InitChunker chunker = new InitChunker(cv, GameContext.GAME_CLASS_NAME, "initTexts");
 		for (TextNode textNode : texts) {
+			MethodVisitor mv = chunker.next();
 			mv.visitVarInsn(ALOAD, 0);
 
 			mv.visitTypeInsn(NEW, Type.getInternalName(Text.class));
@@ -204,64 +527,60 @@ public class GameNode implements BaseNode {
 			mv.visitIntInsn(SIPUSH, textNode.getTextNodes().size());
 			mv.visitTypeInsn(ANEWARRAY, Type.getInternalName(String.class));
 			for (int index = 0; index < textNode.getTextNodes().size(); index++) {
-				String name = "textElement" + textNode.getTextNodes().get(index).getIndex();
 				mv.visitInsn(DUP);
 				mv.visitIntInsn(SIPUSH, index);
-				mv.visitVarInsn(ALOAD, 0);
-				mv.visitFieldInsn(GETFIELD, GameContext.GAME_CLASS_NAME, name, Type.getDescriptor(String.class));
+				mv.visitLdcInsn(textNode.getTextNodes().get(index).getText());
 				mv.visitInsn(AASTORE);
 			}
 
+			AsmUtils.loadInternalFunctions(mv, null);
+			mv.visitMethodInsn(
+					INVOKEVIRTUAL,
+					Type.getInternalName(InternalFunctions.class),
+					"getRandom",
+					"()" + Type.getDescriptor(GameRandom.class),
+					false);
+
 			mv.visitMethodInsn(
 					INVOKESPECIAL,
 					Type.getInternalName(Text.class),
 					"<init>",
-					"(" + Type.getDescriptor(TextMethod.class) + Type.getDescriptor(String[].class) + ")V",
+					"(" + Type.getDescriptor(TextMethod.class) + Type.getDescriptor(String[].class) + Type.getDescriptor(RandomGenerator.class) + ")V",
 					false);
 
 			mv.visitFieldInsn(PUTFIELD, GameContext.GAME_CLASS_NAME, textNode.getName(), Type.getDescriptor(Text.class));
 		}
+		chunker.callFrom(constructor);
 	}
 
-	private void generateFlags(MethodVisitor mv) {
-		mv.visitVarInsn(ALOAD, 0);
-		mv.visitTypeInsn(NEW, Type.getInternalName(HashMap.class));
-		mv.visitInsn(DUP);
-		mv.visitMethodInsn(INVOKESPECIAL, Type.getInternalName(HashMap.class), "<init>", "()V", false);
-		mv.visitFieldInsn(PUTFIELD, GameContext.GAME_CLASS_NAME, "variableFlags", Type.getDescriptor(Map.class));
-		for (VariableNode variableNode : variables) {
-			AsmUtils.addIntegerToMap(mv, GameContext.GAME_CLASS_NAME, "variableFlags", variableNode.getVariable(), 0);
-		}
-		int bitValue = 0;
-		for (FlagNode flagNode : variableFlags) {
-			for (String flag : flagNode.getFlags()) {
-				mv.visitVarInsn(ALOAD, 0);
-				mv.visitLdcInsn(1 << bitValue++);
-				mv.visitFieldInsn(PUTFIELD, GameContext.GAME_CLASS_NAME, flag, "I");
-			}
-		}
-		bitValue = 0;
-		for (FlagNode flagNode : placeFlags) {
-			for (String flag : flagNode.getFlags()) {
-				mv.visitVarInsn(ALOAD, 0);
-				mv.visitLdcInsn(1 << bitValue++);
-				mv.visitFieldInsn(PUTFIELD, GameContext.GAME_CLASS_NAME, flag, "I");
-			}
-		}
-		bitValue = 0;
-		for (FlagNode flagNode : objectFlags) {
-			for (String flag : flagNode.getFlags()) {
-				mv.visitVarInsn(ALOAD, 0);
-				mv.visitLdcInsn(1 << bitValue++);
-				mv.visitFieldInsn(PUTFIELD, GameContext.GAME_CLASS_NAME, flag, "I");
+	private void generateFlags(ClassVisitor cv, MethodVisitor constructor) {
+		// One slot per variable, indexed by getVariableFlagIndex.
+		constructor.visitVarInsn(ALOAD, 0);
+		constructor.visitLdcInsn(variableFlagIndexes.size());
+		constructor.visitIntInsn(NEWARRAY, T_INT);
+		constructor.visitFieldInsn(PUTFIELD, GameContext.GAME_CLASS_NAME, "variableFlags", Type.getDescriptor(int[].class));
+
+		InitChunker chunker = new InitChunker(cv, GameContext.GAME_CLASS_NAME, "initFlags");
+		for (List<FlagNode> flagNodes : List.of(variableFlags, placeFlags, objectFlags)) {
+			int bitValue = 0;
+			for (FlagNode flagNode : flagNodes) {
+				for (String flag : flagNode.getFlags()) {
+					MethodVisitor mv = chunker.next();
+					mv.visitVarInsn(ALOAD, 0);
+					mv.visitLdcInsn(1 << bitValue++);
+					mv.visitFieldInsn(PUTFIELD, GameContext.GAME_CLASS_NAME, flag, "I");
+				}
 			}
 		}
+		chunker.callFrom(constructor);
 	}
 
-	private void generateStates(GameContext gameContext, MethodVisitor mv) {
+	private void generateStates(ClassVisitor cv, MethodVisitor constructor, GameContext gameContext) {
+		InitChunker chunker = new InitChunker(cv, GameContext.GAME_CLASS_NAME, "initStates");
 		int nextStateValue = 0;
 		String previousState = null;
 		for (StateClauseNode stateClauseNode : states.values()) {
+			MethodVisitor mv = chunker.next();
 			mv.visitVarInsn(ALOAD, 0);
 			if (stateClauseNode.getValue() == null) {
 				if (previousState != null) {
@@ -278,45 +597,102 @@ public class GameNode implements BaseNode {
 			mv.visitFieldInsn(PUTFIELD, GameContext.GAME_CLASS_NAME, stateClauseNode.getState(), "I");
 			previousState = stateClauseNode.getState();
 		}
+		chunker.callFrom(constructor);
 	}
 
-	private void generateVariables(MethodVisitor mv) {
+	private void generateVariables(ClassVisitor cv, MethodVisitor constructor) {
+		InitChunker chunker = new InitChunker(cv, GameContext.GAME_CLASS_NAME, "initVariables");
 		for (VariableNode variableNode : variables) {
+			MethodVisitor mv = chunker.next();
 			mv.visitVarInsn(ALOAD, 0);
 			mv.visitInsn(variableNode.getVariableType() == VariableType.NUMBER ? ICONST_0 : ACONST_NULL);
 			mv.visitFieldInsn(PUTFIELD, GameContext.GAME_CLASS_NAME, variableNode.getVariable(), variableNode.getType());
 		}
+		chunker.callFrom(constructor);
 	}
 
-	private void generatePlaceAssignments(MethodVisitor mv) {
-		// Construct places hashmap
+	private void generatePlaceTable(MethodVisitor mv) {
+		// Places are created on first reference, by createPlace, with the indexes from the game metadata.
 		mv.visitVarInsn(ALOAD, 0);
-		mv.visitTypeInsn(NEW, Type.getInternalName(HashMap.class));
+		mv.visitTypeInsn(NEW, Type.getInternalName(PlaceTable.class));
 		mv.visitInsn(DUP);
-		mv.visitMethodInsn(INVOKESPECIAL, Type.getInternalName(HashMap.class), "<init>", "()V", false);
-		mv.visitFieldInsn(PUTFIELD, GameContext.GAME_CLASS_NAME, "places", Type.getDescriptor(Map.class));
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(InternalFunctions.class), "getMetadata",
+				"()" + Type.getDescriptor(GameMetadata.class), false);
+		mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(GameMetadata.class), "places",
+				"()" + Type.getDescriptor(Map.class), false);
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitMethodInsn(INVOKESPECIAL, Type.getInternalName(PlaceTable.class), "<init>",
+				"(" + Type.getDescriptor(Map.class) + Type.getDescriptor(PlaceTable.Factory.class) + ")V", false);
+		mv.visitFieldInsn(PUTFIELD, GameContext.GAME_CLASS_NAME, "places", Type.getDescriptor(PlaceTable.class));
+	}
 
-		for (PlaceNode placeNode : places) {
+	private void generateCreatePlace(ClassVisitor cv) {
+		// GamePlace createPlace(int index): construct the place with that index, or return null. Indexes
+		// run in declaration order, so for large games the switch is split into one method for every
+		// PLACES_PER_METHOD places, picked by index / PLACES_PER_METHOD.
+		List<Map.Entry<String, Integer>> entries = new ArrayList<>(placeIndexes.entrySet());
+		if (entries.size() <= PLACES_PER_METHOD) {
+			generatePlaceSwitch(cv, ACC_PUBLIC, "createPlace", entries);
+			return;
+		}
+
+		MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, "createPlace", "(I)" + Type.getDescriptor(GamePlace.class), null, null);
+		mv.visitParameter("index", 0);
+		mv.visitCode();
+		Label defaultLabel = new Label();
+		SortedMap<Integer, Label> cases = new TreeMap<>();
+		for (int chunk = 0; chunk * PLACES_PER_METHOD < entries.size(); chunk++) {
+			cases.put(chunk, new Label());
+		}
+		mv.visitVarInsn(ILOAD, 1);
+		mv.visitLdcInsn(PLACES_PER_METHOD);
+		mv.visitInsn(IDIV);
+		AsmUtils.createSwitch(mv, defaultLabel, cases);
+		for (Map.Entry<Integer, Label> entry : cases.entrySet()) {
+			String methodName = "createPlace" + entry.getKey();
+			mv.visitLabel(entry.getValue());
 			mv.visitVarInsn(ALOAD, 0);
-			mv.visitFieldInsn(GETFIELD, GameContext.GAME_CLASS_NAME, "places", Type.getDescriptor(Map.class));
-			mv.visitLdcInsn(placeNode.getName());
-			mv.visitTypeInsn(NEW, GameContext.GAME_CLASS_NAME + "$" + placeNode.getName());
+			mv.visitVarInsn(ILOAD, 1);
+			mv.visitMethodInsn(INVOKESPECIAL, GameContext.GAME_CLASS_NAME, methodName, "(I)" + Type.getDescriptor(GamePlace.class), false);
+			mv.visitInsn(ARETURN);
+
+			int first = entry.getKey() * PLACES_PER_METHOD;
+			generatePlaceSwitch(cv, ACC_PRIVATE, methodName,
+					entries.subList(first, Math.min(first + PLACES_PER_METHOD, entries.size())));
+		}
+		mv.visitLabel(defaultLabel);
+		mv.visitInsn(ACONST_NULL);
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	private void generatePlaceSwitch(ClassVisitor cv, int access, String methodName, List<Map.Entry<String, Integer>> entries) {
+		MethodVisitor mv = cv.visitMethod(access, methodName, "(I)" + Type.getDescriptor(GamePlace.class), null, null);
+		mv.visitParameter("index", 0);
+		mv.visitCode();
+		Label defaultLabel = new Label();
+		SortedMap<Integer, Label> cases = new TreeMap<>();
+		for (Map.Entry<String, Integer> entry : entries) {
+			cases.put(entry.getValue(), new Label());
+		}
+		mv.visitVarInsn(ILOAD, 1);
+		AsmUtils.createSwitch(mv, defaultLabel, cases);
+		for (Map.Entry<String, Integer> entry : entries) {
+			String placeClassName = GameContext.GAME_CLASS_NAME + "$" + entry.getKey();
+			mv.visitLabel(cases.get(entry.getValue()));
+			mv.visitTypeInsn(NEW, placeClassName);
 			mv.visitInsn(DUP);
 			mv.visitVarInsn(ALOAD, 0);
-			mv.visitMethodInsn(
-					INVOKESPECIAL,
-					GameContext.GAME_CLASS_NAME + "$" + placeNode.getName(),
-					"<init>",
-					"(" + GameContext.GAME_CLASS_DESCRIPTOR + ")V",
-					false);
-			mv.visitMethodInsn(
-					INVOKEINTERFACE,
-					Type.getInternalName(Map.class),
-					"put",
-					"(" + Type.getDescriptor(Object.class) + Type.getDescriptor(Object.class) + ")" + Type.getDescriptor(Object.class),
-					true);
-			mv.visitInsn(POP);
+			mv.visitMethodInsn(INVOKESPECIAL, placeClassName, "<init>", "(" + GameContext.GAME_CLASS_DESCRIPTOR + ")V", false);
+			mv.visitInsn(ARETURN);
 		}
+		mv.visitLabel(defaultLabel);
+		mv.visitInsn(ACONST_NULL);
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
 	}
 
 	public void createDefaultElements() {
@@ -391,35 +767,67 @@ public class GameNode implements BaseNode {
 		getPlaces().add(node);
 	}
 
-	public int getTextElementIndex(String text) {
-		int index;
-		if (textElementIndexes.containsKey(text)) {
-			index = textElementIndexes.get(text);
-		} else {
-			index = textElementIndexes.size();
-			textElementIndexes.put(text, index);
+	private void assignVariableFlagIndex(String variable) {
+		variableFlagIndexes.putIfAbsent(variable, variableFlagIndexes.size());
+	}
+
+	/*
+	 * The slot of a variable in variableFlags. Slots are all assigned while the Game class is
+	 * generated, before the constructor sizes the array, so this only reads, and is safe to call
+	 * while inner classes are generated in parallel.
+	 */
+	public int getVariableFlagIndex(String variable) {
+		Integer index = variableFlagIndexes.get(variable);
+		if (index == null) {
+			throw new GameRuntimeException("No flag slot for variable \"" + variable + "\"");
 		}
 		return index;
 	}
 
-	public void setSourceFile(ClassVisitor cv, SourceLocation sourceLocation) {
-		cv.visitSource(sourceLocation.getFilePath(), null);
-		lineNumber = 0;
+	private void internVocabulary() {
+		// Id 0 is the empty word, so a missing argument dispatches like "".
+		wordIds.clear();
+		internWord("");
+		for (VocabularyNode vocabularyNode : verbs.values()) {
+			internWord(vocabularyNode.getName());
+		}
+		for (Map.Entry<String, ActionNode> entry : actions.entrySet()) {
+			internWord(entry.getKey());
+			for (ActionNode.ActionCode actionCode : entry.getValue().getActionCodes()) {
+				if (actionCode.getArg2() != null) {
+					internWord(actionCode.getArg2());
+				}
+			}
+		}
+		for (PlaceNode placeNode : places) {
+			if (placeNode.getCommands() != null) {
+				placeNode.getCommands().keySet().forEach(this::internWord);
+			}
+		}
+		for (ObjectNode objectNode : objects) {
+			if (objectNode.getCommands() != null) {
+				objectNode.getCommands().keySet().forEach(this::internWord);
+			}
+			if (objectNode.getMessages() != null) {
+				objectNode.getMessages().keySet().forEach(this::internWord);
+			}
+		}
 	}
 
-	public void setLineNumber(MethodVisitor mv, SourceLocation sourceLocation) {
-		if (sourceLocation.getLine() != lineNumber) {
-			lineNumber = sourceLocation.getLine();
-			Label label = new Label();
-			mv.visitLabel(label);
-			mv.visitLineNumber(lineNumber, label);
-		}
+	private void internWord(String word) {
+		wordIds.putIfAbsent(word, wordIds.size());
 	}
 
-	public void setLineNumber(MethodVisitor mv, SourceLocation sourceLocation, Label label) {
-		if (sourceLocation.getLine() != lineNumber) {
-			lineNumber = sourceLocation.getLine();
-			mv.visitLineNumber(lineNumber, label);
+	public int getWordId(String word) {
+		if (word == null) {
+			return 0;
 		}
+		Integer id = wordIds.get(word);
+		return id == null ? -1 : id;
+	}
+
+	public int getPlaceIndex(String place) {
+		Integer index = placeIndexes.get(place);
+		return index == null ? -1 : index;
 	}
 }
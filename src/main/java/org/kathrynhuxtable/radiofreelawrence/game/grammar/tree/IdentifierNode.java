@@ -1,13 +1,13 @@
 package org.kathrynhuxtable.radiofreelawrence.game.grammar.tree;
 
-import java.util.Map;
-
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Type;
 
 import org.kathrynhuxtable.radiofreelawrence.game.GameContext;
+import org.kathrynhuxtable.radiofreelawrence.game.GamePlace;
+import org.kathrynhuxtable.radiofreelawrence.game.PlaceTable;
 import org.kathrynhuxtable.radiofreelawrence.game.Text;
 import org.kathrynhuxtable.radiofreelawrence.game.exception.GameRuntimeException;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.SourceLocation;
@@ -26,7 +26,7 @@ public class IdentifierNode implements ExprNode {
 
 	@Override
 	public void generate(MethodVisitor mv, GameContext gameContext) {
-		gameContext.gameNode.setLineNumber(mv, sourceLocation);
+		gameContext.setLineNumber(mv, sourceLocation);
 		VariableContext variableContext = gameContext.variableStore.getVariable(name);
 		if (variableContext == null) {
 			throw new GameRuntimeException("undefined variable: " + name);
@@ -36,6 +36,20 @@ public class IdentifierNode implements ExprNode {
 			} else {
 				mv.visitVarInsn(ALOAD, variableContext.getIndex());
 			}
+		} else if (variableContext.getVariableType() == VariableType.PLACE && gameContext.gameNode.getPlaceIndex(name) >= 0) {
+			mv.visitVarInsn(ALOAD, 0);
+			if (gameContext.variableStore.getCurrentClass() != null) {
+				// Need to reference instance variable in outer class
+				mv.visitFieldInsn(
+						GETFIELD,
+						gameContext.variableStore.getCurrentClass(),
+						"this$0", // outer class "this"
+						GameContext.GAME_CLASS_DESCRIPTOR);
+			}
+			mv.visitFieldInsn(GETFIELD, GameContext.GAME_CLASS_NAME, "places", Type.getDescriptor(PlaceTable.class));
+			mv.visitLdcInsn(gameContext.gameNode.getPlaceIndex(name));
+			mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(PlaceTable.class), "get",
+					"(I)" + Type.getDescriptor(GamePlace.class), false);
 		} else if (variableContext.getVariableType() == VariableType.PLACE) {
 			mv.visitVarInsn(ALOAD, 0);
 			if (gameContext.variableStore.getCurrentClass() != null) {
@@ -46,14 +60,10 @@ public class IdentifierNode implements ExprNode {
 						"this$0", // outer class "this"
 						GameContext.GAME_CLASS_DESCRIPTOR);
 			}
-			mv.visitFieldInsn(GETFIELD, GameContext.GAME_CLASS_NAME, "places", Type.getDescriptor(Map.class));
+			mv.visitFieldInsn(GETFIELD, GameContext.GAME_CLASS_NAME, "places", Type.getDescriptor(PlaceTable.class));
 			mv.visitLdcInsn(variableContext.getName());
-			mv.visitMethodInsn(
-					INVOKEINTERFACE,
-					Type.getInternalName(Map.class),
-					"get",
-					"(" + Type.getDescriptor(Object.class) + ")" + Type.getDescriptor(Object.class),
-					true);
+			mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(PlaceTable.class), "get",
+					"(" + Type.getDescriptor(String.class) + ")" + Type.getDescriptor(GamePlace.class), false);
 //			mv.visitTypeInsn(CHECKCAST, Type.getInternalName(GamePlace.class));
 		} else {
 			String className = GameContext.GAME_CLASS_NAME;
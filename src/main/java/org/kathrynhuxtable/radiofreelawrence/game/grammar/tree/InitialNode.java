@@ -8,6 +8,7 @@ import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
 import org.objectweb.asm.commons.LocalVariablesSorter;
 
 import org.kathrynhuxtable.radiofreelawrence.game.GameContext;
@@ -28,10 +29,10 @@ public class InitialNode implements DeclaratorNode {
 
 	@Override
 	public void generate(ClassVisitor cv, GameContext gameContext) {
-		gameContext.gameNode.setSourceFile(cv, sourceLocation);
+		gameContext.setSourceFile(cv, sourceLocation);
 		String name = "initialProc" + index;
 		gameContext.variableStore.addVariable(name, VariableType.METHOD);
-		gameContext.variableStore.newFunctionScope();
+		gameContext.variableStore.newFunctionScope(Type.INT_TYPE);
 		MethodVisitor mv2 = cv.visitMethod(ACC_PUBLIC, name, "()I", null, null);
 		mv2.visitCode();
 		LocalVariablesSorter mv = new LocalVariablesSorter(Opcodes.ACC_PUBLIC, "()I", mv2);
@@ -41,6 +42,7 @@ public class InitialNode implements DeclaratorNode {
 
 		Label startLabel = new Label();
 		mv.visitLabel(startLabel);
+		code.allowLeadingInput();
 		code.generate(mv, gameContext);
 		Label endLabel = new Label();
 		mv.visitLabel(endLabel);
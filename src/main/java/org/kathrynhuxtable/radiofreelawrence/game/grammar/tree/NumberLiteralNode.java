@@ -20,7 +20,7 @@ public class NumberLiteralNode implements ExprNode {
 
 	@Override
 	public void generate(MethodVisitor mv, GameContext gameContext) {
-		gameContext.gameNode.setLineNumber(mv, sourceLocation);
+		gameContext.setLineNumber(mv, sourceLocation);
 		mv.visitLdcInsn(number);
 	}
 
@@ -92,7 +92,7 @@ public class ObjectNode implements DeclaratorNode, VocabularyNode {
 		AsmUtils.createGetter(cv, innerClassInternalName, ACC_PUBLIC, "getActions", "actions", Type.getDescriptor(List.class), "Ljava/util/List<Ljava/lang/String;>;");
 		AsmUtils.createGetter(cv, innerClassInternalName, ACC_PUBLIC, "getVerbs", "verbs", Type.getDescriptor(List.class), "Ljava/util/List<Ljava/lang/String;>;");
 		AsmUtils.createGetter(cv, innerClassInternalName, ACC_PUBLIC, "getLocation", "location", Type.getDescriptor(GamePlace.class));
-		AsmUtils.createSetter(cv, innerClassInternalName, ACC_PUBLIC, "setLocation", "location", Type.getDescriptor(GamePlace.class));
+		generateSetLocation(cv);
 		AsmUtils.createGetter(cv, innerClassInternalName, ACC_PUBLIC, "getFlags", "flags", Type.INT_TYPE.getDescriptor());
 		AsmUtils.createSetter(cv, innerClassInternalName, ACC_PUBLIC, "setFlags", "flags", Type.INT_TYPE.getDescriptor());
 		AsmUtils.createGetter(cv, innerClassInternalName, ACC_PUBLIC, "toString", "name", Type.getDescriptor(String.class));
@@ -108,7 +108,7 @@ public class ObjectNode implements DeclaratorNode, VocabularyNode {
 	private void generateConstructor(ClassVisitor cv, GameContext gameContext) {
 		String innerClassInternalName = GameContext.GAME_CLASS_NAME + "$" + name;
 
-		gameContext.gameNode.setSourceFile(cv, sourceLocation);
+		gameContext.setSourceFile(cv, sourceLocation);
 
 		// standard constructor, accepting InternalFunctions parameter
 		MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, "<init>", "(" + GameContext.GAME_CLASS_DESCRIPTOR + ")V", null, null);
@@ -174,6 +174,33 @@ public class ObjectNode implements DeclaratorNode, VocabularyNode {
 		mv.visitEnd();
 	}
 
+	private void generateSetLocation(ClassVisitor cv) {
+		// Keep the contents of the old and new places in step with the location field.
+		String innerClassInternalName = GameContext.GAME_CLASS_NAME + "$" + name;
+		String innerClassDescriptor = "L" + innerClassInternalName + ";";
+		MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, "setLocation", "(" + Type.getDescriptor(GamePlace.class) + ")V", null, null);
+		mv.visitParameter("location", 0);
+		mv.visitCode();
+		Label beginLabel = new Label();
+		mv.visitLabel(beginLabel);
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitFieldInsn(GETFIELD, innerClassInternalName, "location", Type.getDescriptor(GamePlace.class));
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(InternalFunctions.class), "relocate",
+				"(" + Type.getDescriptor(GameObject.class) + Type.getDescriptor(GamePlace.class) + Type.getDescriptor(GamePlace.class) + ")V", false);
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitFieldInsn(PUTFIELD, innerClassInternalName, "location", Type.getDescriptor(GamePlace.class));
+		mv.visitInsn(RETURN);
+		Label endLabel = new Label();
+		mv.visitLabel(endLabel);
+		mv.visitLocalVariable("this", innerClassDescriptor, null, beginLabel, endLabel, 0);
+		mv.visitLocalVariable("location", Type.getDescriptor(GamePlace.class), null, beginLabel, endLabel, 1);
+		mv.visitMaxs(3, 2);
+		mv.visitEnd();
+	}
+
 	private void generateIterator(ClassVisitor cv, GameContext gameContext) {
 		String innerClassInternalName = GameContext.GAME_CLASS_NAME + "$" + name;
 		String innerClassDescriptor = "L" + innerClassInternalName + ";";
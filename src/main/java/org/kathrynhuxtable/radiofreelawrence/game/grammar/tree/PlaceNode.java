@@ -1,7 +1,9 @@
 package org.kathrynhuxtable.radiofreelawrence.game.grammar.tree;
 
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import lombok.*;
 import org.objectweb.asm.*;
@@ -55,6 +57,10 @@ public class PlaceNode implements DeclaratorNode, VocabularyNode {
 		gameContext.variableStore.addVariable("flags", VariableType.NUMBER);
 		AsmUtils.createField(cv, ACC_PUBLIC, "flags", Type.INT_TYPE.getDescriptor());
 
+		// Objects whose location is this place, maintained by the objects' setLocation.
+		AsmUtils.createField(cv, ACC_PUBLIC | ACC_FINAL, "contents", "Ljava/util/Set;",
+				"Ljava/util/Set<" + Type.getDescriptor(GameObject.class) + ">;");
+
 		for (VariableNode variableNode : variables) {
 			variableNode.generate(cv, gameContext);
 		}
@@ -69,6 +75,8 @@ public class PlaceNode implements DeclaratorNode, VocabularyNode {
 		AsmUtils.createGetter(cv, innerClassInternalName, ACC_PUBLIC, "getActions", "actions", Type.getDescriptor(List.class), "Ljava/util/List<Ljava/lang/String;>;");
 		AsmUtils.createGetter(cv, innerClassInternalName, ACC_PUBLIC, "getVerbs", "verbs", Type.getDescriptor(List.class), "Ljava/util/List<Ljava/lang/String;>;");
 		AsmUtils.createGetter(cv, innerClassInternalName, ACC_PUBLIC, "getFlags", "flags", Type.INT_TYPE.getDescriptor());
+		AsmUtils.createGetter(cv, innerClassInternalName, ACC_PUBLIC, "getContents", "contents", Type.getDescriptor(Set.class),
+				"Ljava/util/Set<" + Type.getDescriptor(GameObject.class) + ">;");
 		AsmUtils.createSetter(cv, innerClassInternalName, ACC_PUBLIC, "setFlags", "flags", Type.INT_TYPE.getDescriptor());
 		AsmUtils.createGetter(cv, innerClassInternalName, ACC_PUBLIC, "toString", "name", Type.getDescriptor(String.class));
 
@@ -89,7 +97,7 @@ public class PlaceNode implements DeclaratorNode, VocabularyNode {
 	private void generateConstructor(ClassVisitor cv, GameContext gameContext) {
 		String innerClassInternalName = GameContext.GAME_CLASS_NAME + "$" + name;
 
-		gameContext.gameNode.setSourceFile(cv, sourceLocation);
+		gameContext.setSourceFile(cv, sourceLocation);
 
 		// standard constructor, accepting InternalFunctions parameter
 		MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, "<init>", "(" + GameContext.GAME_CLASS_DESCRIPTOR + ")V", null, null);
@@ -127,6 +135,12 @@ public class PlaceNode implements DeclaratorNode, VocabularyNode {
 		AsmUtils.createList(mv, innerClassInternalName, "actions", commands.keySet());
 		AsmUtils.createList(mv, innerClassInternalName, "verbs", verbs);
 
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitTypeInsn(NEW, Type.getInternalName(LinkedHashSet.class));
+		mv.visitInsn(DUP);
+		mv.visitMethodInsn(INVOKESPECIAL, Type.getInternalName(LinkedHashSet.class), "<init>", "()V", false);
+		mv.visitFieldInsn(PUTFIELD, innerClassInternalName, "contents", Type.getDescriptor(Set.class));
+
 		for (VariableNode variableNode : variables) {
 			mv.visitVarInsn(ALOAD, 0);
 			mv.visitInsn(ICONST_0);
@@ -147,10 +161,7 @@ public class PlaceNode implements DeclaratorNode, VocabularyNode {
 		mv.visitLabel(label0);
 		mv.visitLineNumber(35, label0);
 		mv.visitVarInsn(ALOAD, 0);
-		mv.visitFieldInsn(GETFIELD, innerClassInternalName, "this$0", GameContext.GAME_CLASS_DESCRIPTOR);
-		mv.visitFieldInsn(GETFIELD, GameContext.GAME_CLASS_NAME, "objects", "Ljava/util/Map;");
-		mv.visitVarInsn(ALOAD, 0);
-		mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(InternalFunctions.class), "iterator", "(Ljava/util/Map;Lorg/kathrynhuxtable/radiofreelawrence/game/GamePlace;)Ljava/util/Iterator;", false);
+		mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(InternalFunctions.class), "iterator", "(Lorg/kathrynhuxtable/radiofreelawrence/game/GamePlace;)Ljava/util/Iterator;", false);
 		mv.visitInsn(ARETURN);
 		Label label1 = new Label();
 		mv.visitLabel(label1);
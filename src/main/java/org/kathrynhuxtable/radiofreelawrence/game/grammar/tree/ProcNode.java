@@ -34,8 +34,8 @@ public class ProcNode implements DeclaratorNode {
 	@Override
 	public void generate(ClassVisitor cv, GameContext gameContext) {
 		try {
-			gameContext.gameNode.setSourceFile(cv, sourceLocation);
-			gameContext.variableStore.newFunctionScope();
+			gameContext.setSourceFile(cv, sourceLocation);
+			gameContext.variableStore.newFunctionScope(Type.INT_TYPE);
 			StringBuilder descriptor = new StringBuilder("(");
 			for (int i = 0; i < args.size(); i++) {
 				descriptor.append(switch (parameterTypes.get(i)) {
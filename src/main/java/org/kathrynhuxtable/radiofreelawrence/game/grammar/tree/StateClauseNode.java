@@ -9,7 +9,6 @@ import org.kathrynhuxtable.radiofreelawrence.game.GameContext;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.SourceLocation;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.VariableType;
 
-import static org.objectweb.asm.Opcodes.ACC_FINAL;
 import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
 
 @Data
@@ -24,7 +23,7 @@ public class StateClauseNode implements DeclaratorNode {
 	public void generate(ClassVisitor cv, GameContext gameContext) {
 		gameContext.variableStore.addVariable(state, VariableType.NUMBER);
 
-		AsmUtils.createField(cv, ACC_PUBLIC | ACC_FINAL, state, "I");
+		AsmUtils.createField(cv, ACC_PUBLIC, state, "I");
 	}
 
 }
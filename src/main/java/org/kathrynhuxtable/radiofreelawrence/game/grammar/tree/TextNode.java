@@ -16,7 +16,6 @@ import org.kathrynhuxtable.radiofreelawrence.game.TextMethod;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.SourceLocation;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.VariableType;
 
-import static org.objectweb.asm.Opcodes.ACC_FINAL;
 import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
 
 @Data
@@ -35,6 +34,6 @@ public class TextNode implements DeclaratorNode {
 	@Override
 	public void generate(ClassVisitor cv, GameContext gameContext) {
 		gameContext.variableStore.addVariable(name, VariableType.TEXT_NODE);
-		AsmUtils.createField(cv, ACC_PUBLIC | ACC_FINAL, name, Type.getDescriptor(Text.class));
+		AsmUtils.createField(cv, ACC_PUBLIC, name, Type.getDescriptor(Text.class));
 	}
 }
@@ -1,6 +1,7 @@
 package org.kathrynhuxtable.radiofreelawrence.game.grammar.tree;
 
 import java.util.Map;
+import java.util.SortedMap;
 import java.util.TreeMap;
 
 import lombok.AllArgsConstructor;
@@ -11,8 +12,10 @@ import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
 import org.objectweb.asm.commons.LocalVariablesSorter;
 
+import org.kathrynhuxtable.radiofreelawrence.game.AsmUtils;
 import org.kathrynhuxtable.radiofreelawrence.game.GameContext;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.SourceLocation;
 import org.kathrynhuxtable.radiofreelawrence.game.grammar.VariableContext;
@@ -32,14 +35,14 @@ public class VerbCommandNode implements StatementNode {
 
 	public static void generateActions(ClassVisitor cv, GameContext gameContext, Map<String, VerbCommandNode> actions) {
 		if (actions != null && !actions.isEmpty()) {
-			gameContext.gameNode.setSourceFile(cv, actions.values().iterator().next().getSourceLocation());
+			gameContext.setSourceFile(cv, actions.values().iterator().next().getSourceLocation());
 		}
 		gameContext.variableStore.addVariable("doAction", VariableType.METHOD);
-		gameContext.variableStore.newFunctionScope();
-		MethodVisitor mv2 = cv.visitMethod(ACC_PUBLIC, "doAction", "(Ljava/lang/String;)V", null, null);
+		gameContext.variableStore.newFunctionScope(Type.VOID_TYPE);
+		MethodVisitor mv2 = cv.visitMethod(ACC_PUBLIC, "doAction", "(I)V", null, null);
 		mv2.visitParameter("arg1", 0);
 		mv2.visitCode();
-		LocalVariablesSorter mv = new LocalVariablesSorter(Opcodes.ACC_PUBLIC, "(Ljava/lang/String;)V", mv2);
+		LocalVariablesSorter mv = new LocalVariablesSorter(Opcodes.ACC_PUBLIC, "(I)V", mv2);
 		Label startLabel = new Label();
 		Label endLabel = new Label();
 		mv.visitLabel(startLabel);
@@ -47,25 +50,16 @@ public class VerbCommandNode implements StatementNode {
 		vc.setIndex(0);
 
 		if (actions != null && !actions.isEmpty()) {
-			Map<Integer, VerbCommandNode> hashToAction = new TreeMap<>();
-			Map<Integer, Label> hashToLabel = new TreeMap<>();
-			for (Map.Entry<String, VerbCommandNode> entry : actions.entrySet()) {
-				int hashCode = entry.getKey().hashCode();
-				hashToAction.put(hashCode, entry.getValue());
-				hashToLabel.put(hashCode, new Label());
+			SortedMap<Integer, Label> idToLabel = new TreeMap<>();
+			for (String verb : actions.keySet()) {
+				idToLabel.put(gameContext.gameNode.getWordId(verb), new Label());
 			}
 
-			mv.visitVarInsn(ALOAD, 1);
-			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "hashCode", "()I", false);
-			mv.visitLookupSwitchInsn(
-					endLabel,
-					hashToAction.keySet().stream()
-							.mapToInt(Integer::intValue)
-							.toArray(),
-					hashToLabel.values().toArray(new Label[0]));
+			mv.visitVarInsn(ILOAD, 1);
+			AsmUtils.createSwitch(mv, endLabel, idToLabel);
 
 			for (Map.Entry<String, VerbCommandNode> entry : actions.entrySet()) {
-				mv.visitLabel(hashToLabel.get(entry.getKey().hashCode()));
+				mv.visitLabel(idToLabel.get(gameContext.gameNode.getWordId(entry.getKey())));
 	//			mv.visitFrame(Opcodes.F_SAME, 0, null, 0, null);
 
 				entry.getValue().generate(mv, gameContext);
@@ -83,45 +77,34 @@ public class VerbCommandNode implements StatementNode {
 
 	public static void generateMessages(ClassVisitor cv, GameContext gameContext, Map<String, MessageNode> messages) {
 		if (messages != null && !messages.isEmpty()) {
-			gameContext.gameNode.setSourceFile(cv, messages.values().iterator().next().getSourceLocation());
+			gameContext.setSourceFile(cv, messages.values().iterator().next().getSourceLocation());
 		}
 		gameContext.variableStore.addVariable("doMessage", VariableType.METHOD);
-		gameContext.variableStore.newFunctionScope();
-		MethodVisitor mv2 = cv.visitMethod(ACC_PUBLIC, "doMessage", "(Ljava/lang/String;I)I", null, null);
-		mv2.visitParameter("name", 0);
+		gameContext.variableStore.newFunctionScope(Type.INT_TYPE);
+		MethodVisitor mv2 = cv.visitMethod(ACC_PUBLIC, "doMessage", "(II)I", null, null);
+		mv2.visitParameter("message", 0);
 		mv2.visitParameter("arg", 0);
 		mv2.visitCode();
-		LocalVariablesSorter mv = new LocalVariablesSorter(Opcodes.ACC_PUBLIC, "(Ljava/lang/String;I)I", mv2);
+		LocalVariablesSorter mv = new LocalVariablesSorter(Opcodes.ACC_PUBLIC, "(II)I", mv2);
 		Label startLabel = new Label();
 		Label endLabel = new Label();
 		mv.visitLabel(startLabel);
 		VariableContext vc = gameContext.variableStore.addVariable("this", VariableType.REFERENCE);
 		vc.setIndex(0);
-		VariableContext variableContext = gameContext.variableStore.addVariable("name", VariableType.TEXT);
-		variableContext.setIndex(1);
-		variableContext = gameContext.variableStore.addVariable("arg", VariableType.NUMBER);
+		VariableContext variableContext = gameContext.variableStore.addVariable("arg", VariableType.NUMBER);
 		variableContext.setIndex(2);
 
 		if (messages != null && !messages.isEmpty()) {
-			Map<Integer, MessageNode> hashToAction = new TreeMap<>();
-			Map<Integer, Label> hashToLabel = new TreeMap<>();
-			for (Map.Entry<String, MessageNode> entry : messages.entrySet()) {
-				int hashCode = entry.getKey().hashCode();
-				hashToAction.put(hashCode, entry.getValue());
-				hashToLabel.put(hashCode, new Label());
+			SortedMap<Integer, Label> idToLabel = new TreeMap<>();
+			for (String message : messages.keySet()) {
+				idToLabel.put(gameContext.gameNode.getWordId(message), new Label());
 			}
 
-			mv.visitVarInsn(ALOAD, 1);
-			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "hashCode", "()I", false);
-			mv.visitLookupSwitchInsn(
-					endLabel,
-					hashToAction.keySet().stream()
-							.mapToInt(Integer::intValue)
-							.toArray(),
-					hashToLabel.values().toArray(new Label[0]));
+			mv.visitVarInsn(ILOAD, 1);
+			AsmUtils.createSwitch(mv, endLabel, idToLabel);
 
 			for (Map.Entry<String, MessageNode> entry : messages.entrySet()) {
-				mv.visitLabel(hashToLabel.get(entry.getKey().hashCode()));
+				mv.visitLabel(idToLabel.get(gameContext.gameNode.getWordId(entry.getKey())));
 				//			mv.visitFrame(Opcodes.F_SAME, 0, null, 0, null);
 
 				entry.getValue().generate(mv, gameContext);
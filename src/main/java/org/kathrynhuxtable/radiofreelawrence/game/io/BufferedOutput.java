@@ -0,0 +1,44 @@
+package org.kathrynhuxtable.radiofreelawrence.game.io;
+
+import java.io.IOException;
+
+import org.kathrynhuxtable.radiofreelawrence.game.exception.GameRuntimeException;
+
+/*
+ * Collects a turn's output in one reused buffer and hands it to write() on flush.
+ */
+public abstract class BufferedOutput implements GameOutput {
+
+	private final StringBuilder buffer = new StringBuilder(1024);
+
+	@Override
+	public void print(CharSequence text) {
+		buffer.append(text);
+	}
+
+	@Override
+	public void println(CharSequence text) {
+		buffer.append(text).append('\n');
+	}
+
+	@Override
+	public void println() {
+		buffer.append('\n');
+	}
+
+	@Override
+	public void flush() {
+		if (buffer.isEmpty()) {
+			return;
+		}
+		try {
+			write(buffer);
+		} catch (IOException e) {
+			throw new GameRuntimeException("unable to write output", e);
+		} finally {
+			buffer.setLength(0);
+		}
+	}
+
+	protected abstract void write(CharSequence text) throws IOException;
+}
@@ -0,0 +1,49 @@
+package org.kathrynhuxtable.radiofreelawrence.game.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Encodes output as UTF-8 into a reused byte buffer and writes it to a channel.
+ */
+public class ChannelOutput extends BufferedOutput {
+
+	private final WritableByteChannel channel;
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+	private final ByteBuffer bytes = ByteBuffer.allocate(8192);
+
+	public ChannelOutput(WritableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	@Override
+	protected void write(CharSequence text) throws IOException {
+		CharBuffer chars = CharBuffer.wrap(text);
+		encoder.reset();
+		CoderResult result;
+		do {
+			result = encoder.encode(chars, bytes, true);
+			if (result.isError()) {
+				result.throwException();
+			}
+			drain();
+		} while (result.isOverflow());
+		while (encoder.flush(bytes).isOverflow()) {
+			drain();
+		}
+		drain();
+	}
+
+	private void drain() throws IOException {
+		bytes.flip();
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+		bytes.clear();
+	}
+}
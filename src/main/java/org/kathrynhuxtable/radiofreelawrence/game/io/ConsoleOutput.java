@@ -0,0 +1,22 @@
+package org.kathrynhuxtable.radiofreelawrence.game.io;
+
+import java.io.PrintStream;
+
+public class ConsoleOutput extends BufferedOutput {
+
+	private final PrintStream out;
+
+	public ConsoleOutput() {
+		this(System.out);
+	}
+
+	public ConsoleOutput(PrintStream out) {
+		this.out = out;
+	}
+
+	@Override
+	protected void write(CharSequence text) {
+		out.append(text);
+		out.flush();
+	}
+}
@@ -0,0 +1,14 @@
+package org.kathrynhuxtable.radiofreelawrence.game.io;
+
+import java.io.IOException;
+
+/*
+ * Where a session's commands come from, one line at a time.
+ */
+public interface GameInput {
+
+	/*
+	 * Returns the next line without its terminator, or null when there is no more input.
+	 */
+	String readLine() throws IOException;
+}
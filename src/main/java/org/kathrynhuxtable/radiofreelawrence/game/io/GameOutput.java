@@ -0,0 +1,16 @@
+package org.kathrynhuxtable.radiofreelawrence.game.io;
+
+/*
+ * Where a session's text goes. Writes may be buffered until flush(), which the runner
+ * calls at the end of each turn and before reading input.
+ */
+public interface GameOutput {
+
+	void print(CharSequence text);
+
+	void println(CharSequence text);
+
+	void println();
+
+	void flush();
+}
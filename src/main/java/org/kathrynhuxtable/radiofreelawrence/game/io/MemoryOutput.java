@@ -0,0 +1,21 @@
+package org.kathrynhuxtable.radiofreelawrence.game.io;
+
+/*
+ * Keeps flushed output until it is taken, for tests and for callers that return output as a string.
+ */
+public class MemoryOutput extends BufferedOutput {
+
+	private final StringBuilder flushed = new StringBuilder(1024);
+
+	@Override
+	protected void write(CharSequence text) {
+		flushed.append(text);
+	}
+
+	public String take() {
+		flush();
+		String text = flushed.toString();
+		flushed.setLength(0);
+		return text;
+	}
+}
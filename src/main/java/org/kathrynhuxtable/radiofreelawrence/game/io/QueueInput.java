@@ -0,0 +1,33 @@
+package org.kathrynhuxtable.radiofreelawrence.game.io;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Queue;
+
+/*
+ * Serves lines queued in memory, for scripted sessions and tests.
+ */
+public class QueueInput implements GameInput {
+
+	private final Queue<String> lines = new ArrayDeque<>();
+
+	public QueueInput() {
+	}
+
+	public QueueInput(Collection<String> lines) {
+		this.lines.addAll(lines);
+	}
+
+	public void add(String line) {
+		lines.add(line);
+	}
+
+	public boolean isEmpty() {
+		return lines.isEmpty();
+	}
+
+	@Override
+	public String readLine() {
+		return lines.poll();
+	}
+}
@@ -0,0 +1,84 @@
+package org.kathrynhuxtable.radiofreelawrence.game.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+ * Reads lines from a Reader through its own buffer. Lines end at '\n', '\r' or "\r\n".
+ */
+public class ReaderInput implements GameInput, Closeable {
+
+	private final Reader reader;
+	private final char[] buffer = new char[8192];
+	private final StringBuilder line = new StringBuilder(128);
+	private int position;
+	private int limit;
+	private boolean skipLineFeed;
+
+	public ReaderInput(Reader reader) {
+		this.reader = reader;
+	}
+
+	public static ReaderInput console() {
+		return new ReaderInput(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+	}
+
+	public static ReaderInput file(Path path) throws IOException {
+		return new ReaderInput(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+	}
+
+	public static ReaderInput channel(ReadableByteChannel channel) {
+		return new ReaderInput(Channels.newReader(channel, StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public String readLine() throws IOException {
+		line.setLength(0);
+		for (; ; ) {
+			if (position >= limit && !fill()) {
+				return line.isEmpty() ? null : line.toString();
+			}
+			if (skipLineFeed) {
+				skipLineFeed = false;
+				if (buffer[position] == '\n') {
+					position++;
+					continue;
+				}
+			}
+			int start = position;
+			while (position < limit) {
+				char c = buffer[position];
+				if (c == '\n' || c == '\r') {
+					line.append(buffer, start, position - start);
+					position++;
+					skipLineFeed = c == '\r';
+					return line.toString();
+				}
+				position++;
+			}
+			line.append(buffer, start, position - start);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	private boolean fill() throws IOException {
+		int count = reader.read(buffer, 0, buffer.length);
+		if (count <= 0) {
+			return false;
+		}
+		position = 0;
+		limit = count;
+		return true;
+	}
+}